@@ -0,0 +1,134 @@
+package org.ghosty.controller;
+
+import org.ghosty.GhostyBackendApplication;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.ghosty.support.GoogleStubServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rafagas de {@code clients} peticiones concurrentes contra la aplicacion arrancada con hilos de
+ * plataforma (Tomcat con 200 hilos) o con hilos virtuales.
+ * <ul>
+ *     <li>{@code google}: login con Google verificado contra tokeninfo (servidor local con
+ *     {@code tokenInfoDelayMillis} de latencia): E/S HTTP saliente bloqueante.</li>
+ *     <li>{@code users-get}: GET /v1/api/users/{id}: E/S JDBC, limitada por el pool de Hikari.</li>
+ * </ul>
+ * Cada operacion es una rafaga completa; throughput = clients / tiempo de la operacion.
+ * Devuelve las respuestas no 200 para que un 503 por saturacion no pase desapercibido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class VirtualThreadsBenchmark {
+
+    private static final String CLIENT_ID = "test-client-id";
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"google", "users-get"})
+    public String scenario;
+
+    @Param({"1000"})
+    public int clients;
+
+    @Param({"100"})
+    public long tokenInfoDelayMillis;
+
+    private GoogleStubServer google;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private ExecutorService clientThreads;
+    private HttpRequest[] requests;
+
+    @Setup
+    public void setUp() throws Exception {
+        google = new GoogleStubServer();
+        google.setTokenInfoDelayMillis(tokenInfoDelayMillis);
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(GhostyBackendApplication.class)
+                .run("--spring.profiles.active=test",
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN",
+                        "--auth.rate-limit.enabled=false",
+                        // Cola suficiente para que el modo de plataforma encole en vez de responder 503
+                        "--security.password-hashing.queue-capacity=" + clients,
+                        // Sin bulkhead hacia Google: se mide el modelo de hilos, no el limite de llamadas salientes
+                        "--google.http.max-connections-per-host=" + clients,
+                        "--google.http.acquire-timeout=1m",
+                        "--google.auth.verification=tokeninfo",
+                        "--google.auth.tokeninfo-uri=" + google.tokenInfoUri());
+        String baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        requests = new HttpRequest[clients];
+        if ("google".equals(scenario)) {
+            for (int i = 0; i < clients; i++) {
+                String token = google.issueIdToken(CLIENT_ID, "bench-google-" + i, "bench-google" + i + "@example.com", "Bench " + i);
+                requests[i] = HttpRequest.newBuilder(URI.create(baseUrl + "/v1/api/auth/google"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"token\":\"" + token + "\"}"))
+                        .build();
+            }
+        } else {
+            String adminToken = context.getBean(JwtService.class).generateToken(
+                    context.getBean(CustomUserDetailsService.class).loadUserByUsername("admin1@example.com"));
+            List<Long> ids = context.getBean(JdbcTemplate.class).queryForList("select id from users order by id", Long.class);
+            for (int i = 0; i < clients; i++) {
+                requests[i] = HttpRequest.newBuilder(URI.create(baseUrl + "/v1/api/users/" + ids.get(i % ids.size())))
+                        .header("Authorization", "Bearer " + adminToken)
+                        .GET()
+                        .build();
+            }
+        }
+
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        google.close();
+        clientThreads.close();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(clients);
+        for (HttpRequest request : requests) {
+            responses.add(clientThreads.submit(() ->
+                    httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+        }
+        int failed = 0;
+        for (Future<Integer> response : responses) {
+            if (response.get() != 200) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+}
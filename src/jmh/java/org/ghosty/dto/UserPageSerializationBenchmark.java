@@ -0,0 +1,75 @@
+package org.ghosty.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.ghosty.dto.response.PageResponseDTO;
+import org.ghosty.dto.response.UserResponseDTO;
+import org.ghosty.enums.Erol;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializacion de una pagina de {@code GET /v1/api/users}: {@code pageImpl} es la respuesta anterior
+ * ({@code PageImpl} en JSON, con pageable y sort) y el resto {@link PageResponseDTO} en JSON, CBOR y Smile.
+ * Los bytes de cada combinacion se imprimen en el setup; el benchmark mide la serializacion completa a
+ * {@code byte[]} con un writer creado de antemano, como los conversores de la aplicacion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPageSerializationBenchmark {
+
+    private static final long TOTAL_USERS = 50_000;
+
+    @Param({"20", "200", "2000"})
+    public int pageSize;
+
+    @Param({"pageImpl", "json", "cbor", "smile"})
+    public String format;
+
+    private ObjectWriter writer;
+    private Object page;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<UserResponseDTO> users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            long id = 1_000 + i;
+            users.add(new UserResponseDTO(id, "user" + id, "user" + id + "@example.com", i % 10 == 0 ? Erol.ROLE_ADMIN : Erol.ROLE_USER));
+        }
+        Page<UserResponseDTO> source = new PageImpl<>(users, PageRequest.of(3, pageSize, Sort.by("id")), TOTAL_USERS);
+
+        ObjectMapper mapper = switch (format) {
+            case "pageImpl", "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            default -> throw new IllegalArgumentException(format);
+        };
+        if ("pageImpl".equals(format)) {
+            page = source;
+            writer = mapper.writerFor(PageImpl.class);
+        } else {
+            page = PageResponseDTO.of(source);
+            writer = mapper.writerFor(mapper.getTypeFactory().constructParametricType(PageResponseDTO.class, UserResponseDTO.class));
+        }
+        System.out.printf("%n%s, %d usuarios: %d bytes%n", format, pageSize, writer.writeValueAsBytes(page).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+}
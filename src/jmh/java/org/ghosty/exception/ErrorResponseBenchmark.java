@@ -0,0 +1,130 @@
+package org.ghosty.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ghosty.dto.response.ErrorResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura de una respuesta de error: {@code jackson} reproduce el camino anterior (DTO nuevo por
+ * peticion serializado con el conversor de Jackson de Spring MVC, sin contar la negociacion de contenido)
+ * y {@code preSerialized} la plantilla de {@link ErrorResponseWriter}.
+ * {@code fixed} es un 403 con mensaje fijo; {@code dynamic} un 404 con el mensaje de la excepcion.
+ * Con {@code -prof gc} se ve la memoria reservada por respuesta (gc.alloc.rate.norm); {@code emptyResponse}
+ * es el coste de la respuesta simulada, incluido en los otros dos. El cuerpo va a un stream que solo cuenta
+ * bytes: el de MockHttpServletResponse escribe byte a byte y taparia la diferencia (Tomcat copia por bloques).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private static final String PATH = "/v1/api/users/12345";
+    private static final String FORBIDDEN = "Acceso denegado. No tienes permisos para acceder a este recurso";
+    private static final String NOT_FOUND = "Usuario no encontrado con id: 12345";
+
+    @Param({"fixed", "dynamic"})
+    public String kind;
+
+    private MappingJackson2HttpMessageConverter converter;
+    private ErrorResponseWriter writer;
+    private ErrorResponseWriter.Template template;
+    private HttpStatus status;
+    private String message;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = new MappingJackson2HttpMessageConverter(objectMapper);
+        writer = new ErrorResponseWriter(objectMapper);
+        boolean fixed = "fixed".equals(kind);
+        status = fixed ? HttpStatus.FORBIDDEN : HttpStatus.NOT_FOUND;
+        message = fixed ? FORBIDDEN : NOT_FOUND;
+        template = fixed ? writer.fixed(status, message) : writer.dynamic(status);
+    }
+
+    @Benchmark
+    public int emptyResponse() {
+        return new SinkResponse().getContentLength();
+    }
+
+    @Benchmark
+    public int jackson() throws Exception {
+        MockHttpServletResponse response = new SinkResponse();
+        ErrorResponseDTO error = ErrorResponseDTO.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path(PATH)
+                .build();
+        ServletServerHttpResponse output = new ServletServerHttpResponse(response);
+        output.setStatusCode(status);
+        converter.write(error, MediaType.APPLICATION_JSON, output);
+        output.flush();
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int preSerialized() throws Exception {
+        MockHttpServletResponse response = new SinkResponse();
+        if ("fixed".equals(kind)) {
+            writer.write(response, template, PATH);
+        } else {
+            writer.write(response, template, message, PATH);
+        }
+        return response.getContentLength();
+    }
+
+    private static final class SinkResponse extends MockHttpServletResponse {
+
+        private final CountingOutputStream body = new CountingOutputStream();
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.count;
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private int count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
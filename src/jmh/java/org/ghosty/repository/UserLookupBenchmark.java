@@ -0,0 +1,109 @@
+package org.ghosty.repository;
+
+import org.ghosty.GhostyBackendApplication;
+import org.ghosty.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busquedas de usuario por email (sin distinguir mayusculas) y por google_id sobre una BD local en
+ * fichero (H2, esquema creado por las migraciones) con 10 millones de usuarios, frente a la busqueda
+ * por la columna email sin indice que hacia el esquema de partida.
+ * La BD se genera una sola vez en {@code target/lookup-bench} (tarda varios minutos) y se reutiliza.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserLookupBenchmark {
+
+    private static final int SEED_CHUNK = 500_000;
+    private static final int KEYS = 1024;
+
+    @Param({"10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private JdbcTemplate jdbc;
+    private final String[] emails = new String[KEYS];
+    private final String[] googleIds = new String[KEYS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(GhostyBackendApplication.class)
+                .run("--spring.profiles.active=test",
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:file:./target/lookup-bench/users-" + rows + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        userRepository = context.getBean(UserRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        long existing = jdbc.queryForObject("select count(*) from users where email like 'lookup%'", Long.class);
+        if (existing < rows) {
+            String hash = jdbc.queryForObject("select password from users where id = 1", String.class);
+            for (long from = existing + 1; from <= rows; from += SEED_CHUNK) {
+                jdbc.update("insert into users (id, username, email, password, rol_id, google_id) "
+                        + "select next value for users_seq, concat('lookup', r.n), concat('lookup', r.n, '@example.com'), ?, 2, concat('google-', r.n) "
+                        + "from system_range(?, ?) as r(n)", hash, from, Math.min(from + SEED_CHUNK - 1, rows));
+            }
+            jdbc.execute("analyze");
+        }
+
+        // Claves repartidas por toda la tabla; el email en mayusculas/minusculas mezcladas
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < KEYS; i++) {
+            int n = random.nextInt(rows) + 1;
+            emails[i] = "Lookup" + n + "@Example.COM";
+            googleIds[i] = "google-" + n;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        return userRepository.findByEmail(emails[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Optional<User> findByGoogleId() {
+        return userRepository.findByGoogleId(googleIds[next++ & (KEYS - 1)]);
+    }
+
+    /**
+     * Login con Google de un usuario aun sin vincular: coincidencia por email dentro del UNION.
+     */
+    @Benchmark
+    public List<User> findByGoogleIdOrEmail() {
+        int i = next++ & (KEYS - 1);
+        return userRepository.findByGoogleIdOrEmailWithRol("google-sin-vincular", emails[i]);
+    }
+
+    /**
+     * Esquema de partida: {@code email = ?} sin indice (y distinguiendo mayusculas), recorre la tabla.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<Long> unindexedEmailScan() {
+        return jdbc.queryForList("select id from users where email = ?", Long.class,
+                emails[next++ & (KEYS - 1)].toLowerCase());
+    }
+}
@@ -0,0 +1,77 @@
+package org.ghosty.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rechazo de tokens Bearer invalidos (trafico de bots) en {@link JwtAuthenticationFilter}:
+ * basura sin forma de JWT, JWT con caracteres fuera de Base64url y tokens bien firmados pero caducados.
+ * {@code legacyParse} es el camino anterior: JJWT lanza la excepcion y el filtro la captura.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtRejectionBenchmark {
+
+    private static final int KEYS = 1024;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"garbage", "malformed", "expired"})
+    public String kind;
+
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private final String[] tokens = new String[KEYS];
+    private final MockHttpServletRequest[] requests = new MockHttpServletRequest[KEYS];
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtService = JwtServiceBenchmark.newJwtService(JwtServiceBenchmark.SECRET, 86_400_000L, 10_000);
+        filter = new JwtAuthenticationFilter(jwtService, null, new TokenRevocationList(null), new SimpleMeterRegistry());
+        JwtCodec codec = new JwtCodec(JwtServiceBenchmark.SECRET);
+        SplittableRandom random = new SplittableRandom(42);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < KEYS; i++) {
+            tokens[i] = switch (kind) {
+                case "garbage" -> "bot-" + Long.toHexString(random.nextLong());
+                case "malformed" -> "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOi" + i + "$.firma";
+                case "expired" -> codec.sign(Map.of(), "jti-" + i, "user" + i + "@example.com", now - 120_000, now - 60_000);
+                default -> throw new IllegalArgumentException(kind);
+            };
+            requests[i] = new MockHttpServletRequest("GET", "/v1/api/users");
+            requests[i].addHeader("Authorization", "Bearer " + tokens[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        filter.destroy();
+    }
+
+    @Benchmark
+    public int filter() throws Exception {
+        filter.doFilterInternal(requests[next++ & (KEYS - 1)], response, NO_OP_CHAIN);
+        return next;
+    }
+
+    @Benchmark
+    public String legacyParse() {
+        try {
+            return jwtService.extractUsername(tokens[next++ & (KEYS - 1)]);
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+}
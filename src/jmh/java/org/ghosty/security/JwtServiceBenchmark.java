@@ -0,0 +1,89 @@
+package org.ghosty.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firma y validacion de tokens con {@link JwtService}.
+ * Los metodos {@code legacy*} reproducen la implementacion anterior (clave y parser por llamada)
+ * para comparar el antes/despues. Con {@code claimsCacheMaxSize=0} se mide la verificacion real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "YBTcibqVZ8jf4wFa3VoHikCjkgLCBMFvVns5tpfoJlC+xngisb2DXrwhti28fwq+nDBqRuM+9VuPVJVVwCbuPw==";
+
+    @Param({"0", "10000"})
+    public int claimsCacheMaxSize;
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = newJwtService(SECRET, 86_400_000L, claimsCacheMaxSize);
+        userDetails = new User("user1@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtService.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.isTokenValid(token, userDetails);
+    }
+
+    @Benchmark
+    public String legacyGenerateToken() {
+        return Jwts.builder()
+                .setClaims(Map.of("roles", List.of("ROLE_USER")))
+                .setSubject(userDetails.getUsername())
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + 86_400_000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims legacyValidateToken() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    static JwtService newJwtService(String secret, long expiration, int claimsCacheMaxSize) {
+        SecurityEpochRegistry epochs = new SecurityEpochRegistry(null, null);
+        ReflectionTestUtils.setField(epochs, "expiration", expiration);
+        JwtService service = new JwtService(new SimpleMeterRegistry(), epochs, new RoleRegistry(null));
+        ReflectionTestUtils.setField(service, "jwtSecret", secret);
+        ReflectionTestUtils.setField(service, "expiration", expiration);
+        ReflectionTestUtils.setField(service, "claimsCacheMaxSize", claimsCacheMaxSize);
+        service.init();
+        return service;
+    }
+}
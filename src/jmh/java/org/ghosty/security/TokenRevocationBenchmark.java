@@ -0,0 +1,67 @@
+package org.ghosty.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprobacion de revocacion que hace {@link JwtAuthenticationFilter} en cada peticion, con la lista
+ * llena de revocaciones: tokens vigentes (los descarta el filtro de Bloom) y tokens revocados
+ * (confirmados en el conjunto exacto).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({"1000", "100000"})
+    public int revokedTokens;
+
+    private TokenRevocationList revocationList;
+    private final String[] revoked = new String[KEYS];
+    private final String[] valid = new String[KEYS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        revocationList = new TokenRevocationList(null);
+        ReflectionTestUtils.setField(revocationList, "expectedEntries", 100_000);
+        ReflectionTestUtils.setField(revocationList, "falsePositiveRate", 0.01);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < revokedTokens; i++) {
+            String jti = UUID.randomUUID().toString();
+            revocationList.add(jti, expiresAt);
+            if (i < KEYS) {
+                revoked[i] = jti;
+            }
+        }
+        for (int i = 0; i < KEYS; i++) {
+            if (i >= revokedTokens) {
+                revoked[i] = revoked[i % revokedTokens];
+            }
+            valid[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        revocationList.shutdown();
+    }
+
+    @Benchmark
+    public boolean validToken() {
+        return revocationList.isRevoked(valid[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return revocationList.isRevoked(revoked[next++ & (KEYS - 1)]);
+    }
+}
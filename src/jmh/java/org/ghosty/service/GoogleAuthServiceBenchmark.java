@@ -0,0 +1,68 @@
+package org.ghosty.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ghosty.security.HttpJwksSource;
+import org.ghosty.security.JwksKeyCache;
+import org.ghosty.support.GoogleStubServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de verificacion de un ID token de Google: llamada a tokeninfo (stub local con
+ * {@code tokenInfoDelayMs} de latencia simulada) frente a verificacion local contra el JWKS cacheado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GoogleAuthServiceBenchmark {
+
+    private static final String CLIENT_ID = "benchmark-client-id";
+
+    @Param({"tokeninfo", "local"})
+    public String verification;
+
+    @Param({"0", "100"})
+    public long tokenInfoDelayMs;
+
+    private GoogleStubServer google;
+    private JwksKeyCache keyCache;
+    private GoogleAuthService googleAuthService;
+    private String idToken;
+
+    @Setup
+    public void setUp() throws IOException {
+        google = new GoogleStubServer();
+        google.setTokenInfoDelayMillis(tokenInfoDelayMs);
+
+        RestTemplate restTemplate = new RestTemplate();
+        keyCache = new JwksKeyCache(new HttpJwksSource(restTemplate, google.jwksUri()), Duration.ofSeconds(30));
+        googleAuthService = new GoogleAuthService(restTemplate, keyCache, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(googleAuthService, "googleClientId", CLIENT_ID);
+        ReflectionTestUtils.setField(googleAuthService, "verificationMode", verification);
+        ReflectionTestUtils.setField(googleAuthService, "tokenInfoUri", google.tokenInfoUri());
+        ReflectionTestUtils.setField(googleAuthService, "clockSkewSeconds", 60L);
+        googleAuthService.init();
+
+        idToken = google.issueIdToken(CLIENT_ID, "1234567890", "bench@example.com", "Bench");
+    }
+
+    @TearDown
+    public void tearDown() {
+        keyCache.shutdown();
+        google.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> verifyGoogleToken() {
+        return googleAuthService.verifyGoogleToken(idToken);
+    }
+}
@@ -0,0 +1,110 @@
+package org.ghosty.service;
+
+import org.ghosty.GhostyBackendApplication;
+import org.ghosty.dto.response.CursorPageResponseDTO;
+import org.ghosty.dto.response.UserResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listado de usuarios con OFFSET ({@code findAllDTO}, con COUNT) frente a cursor ({@code scrollDTO})
+ * sobre H2 con un millon de usuarios, leyendo una pagina a distintas profundidades, y recorrido
+ * completo de la tabla por cursor.
+ * Ojo: el B-tree de H2 sabe saltar filas por posicion, asi que aqui el OFFSET profundo sale barato;
+ * en MySQL/PostgreSQL el OFFSET recorre todas las filas saltadas y el COUNT la tabla entera.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserScrollBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    @Param({"id", "username"})
+    public String sort;
+
+    @Param({"0", "500000", "999000"})
+    public int depth;
+
+    @Param({"50"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private PageRequest offsetPage;
+    private String cursor;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(GhostyBackendApplication.class)
+                .run("--spring.profiles.active=test",
+                        "--server.port=0",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        userService = context.getBean(UserService.class);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long existing = jdbc.queryForObject("select count(*) from users", Long.class);
+        String hash = jdbc.queryForObject("select password from users where id = 1", String.class);
+        jdbc.update("insert into users (id, username, email, password, rol_id) "
+                + "select next value for users_seq, concat('bench', lpad(cast(r.n as varchar), 7, '0')), concat('bench', r.n, '@example.com'), ?, 2 "
+                + "from system_range(1, ?) as r(n)", hash, USERS - existing);
+        jdbc.execute("analyze");
+
+        Sort.Order order = Sort.Order.asc(sort);
+        offsetPage = PageRequest.of(depth / size, size, Sort.by(order, Sort.Order.asc(KeysetCursor.ID)));
+        // Cursor que apunta a la fila anterior a la pagina medida
+        cursor = depth == 0 ? null : jdbc.queryForObject(
+                "select id, username, email from users order by " + sort + ", id limit 1 offset ?",
+                (rs, i) -> KeysetCursor.first(Sort.by(order)).next(UserResponseDTO.builder()
+                        .id(rs.getLong("id"))
+                        .username(rs.getString("username"))
+                        .email(rs.getString("email"))
+                        .build()),
+                depth - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserResponseDTO> offset() {
+        return userService.findAllDTO(offsetPage);
+    }
+
+    @Benchmark
+    public CursorPageResponseDTO<UserResponseDTO> keyset() {
+        return userService.scrollDTO(cursor, size, Sort.by(sort));
+    }
+
+    /**
+     * Recorre el millon de usuarios por cursor en paginas de 2000 (solo depende de {@code sort}).
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long keysetFullScan() {
+        long rows = 0;
+        String next = null;
+        do {
+            CursorPageResponseDTO<UserResponseDTO> page = userService.scrollDTO(next, UserService.MAX_SCROLL_SIZE, Sort.by(sort));
+            rows += page.size();
+            next = page.next();
+        } while (next != null);
+        return rows;
+    }
+}
@@ -0,0 +1,64 @@
+package org.ghosty.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencias de un cliente (un solo hilo escribe): array creciente sin boxing ni sincronizacion.
+ * Al terminar se juntan las de todos los clientes para calcular percentiles exactos.
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long latencyNanos, boolean ok) {
+        if (!ok) {
+            errors++;
+            return;
+        }
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = latencyNanos;
+    }
+
+    static ScenarioResult merge(String scenario, Iterable<LatencyRecorder> recorders, long elapsedNanos) {
+        int total = 0;
+        long errors = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.size;
+            errors += recorder.errors;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.nanos, 0, all, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(all);
+        double seconds = elapsedNanos / 1e9;
+        return new ScenarioResult(
+                scenario,
+                total,
+                errors,
+                round(total / seconds),
+                percentileMillis(all, 50),
+                percentileMillis(all, 95),
+                percentileMillis(all, 99)
+        );
+    }
+
+    // Percentil por rango mas cercano
+    private static double percentileMillis(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return round(sorted[Math.max(0, rank - 1)] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,233 @@
+package org.ghosty.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.ghosty.GhostyBackendApplication;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.ghosty.support.GoogleStubServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Prueba de carga en proceso: arranca la aplicacion contra H2 en memoria, siembra usuarios y lanza
+ * {@code clients} clientes concurrentes (hilos virtuales) contra cada escenario durante {@code duration},
+ * tras un calentamiento. Escribe p50/p95/p99 y throughput en un JSON y termina con codigo 1 si algun
+ * escenario empeora frente a la linea base mas de {@code max-regression}.
+ * <p>
+ * Se ejecuta con {@code ./mvnw -Pload-test -DskipTests verify}; los parametros son propiedades
+ * {@code -Dloadtest.*} (ver el perfil en el pom). {@code -Dloadtest.update-baseline=true} guarda el
+ * resultado como nueva linea base; los numeros dependen de la maquina, asi que la linea base debe
+ * generarse en la misma maquina (o runner de CI) en la que se compara.
+ */
+public final class LoadTestRunner {
+
+    private static final String CLIENT_ID = "test-client-id";
+    private static final String PASSWORD = "password";
+    private static final int GOOGLE_ACCOUNTS = 256;
+
+    private final int users = Integer.getInteger("loadtest.users", 10_000);
+    private final int clients = Integer.getInteger("loadtest.clients", 32);
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 15));
+    private final List<String> scenarios = Arrays.asList(
+            System.getProperty("loadtest.scenarios", "login,register,google,users-list,users-get").split(","));
+    private final Path report = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    private final Path baseline = Path.of(System.getProperty("loadtest.baseline", "src/loadtest/baseline.json"));
+    private final double maxRegression = Double.parseDouble(System.getProperty("loadtest.max-regression", "0.3"));
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+    private final boolean updateBaseline = Boolean.getBoolean("loadtest.update-baseline");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        List<String> regressions = new LoadTestRunner().run();
+        if (!regressions.isEmpty()) {
+            regressions.forEach(regression -> System.err.println("[load-test] REGRESION " + regression));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private List<String> run() throws Exception {
+        Map<String, ScenarioResult> results = new LinkedHashMap<>();
+        try (GoogleStubServer google = new GoogleStubServer();
+             ConfigurableApplicationContext context = start(google)) {
+            String baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            long[] seededIds = seed(context.getBean(JdbcTemplate.class));
+            String adminToken = context.getBean(JwtService.class).generateToken(
+                    context.getBean(CustomUserDetailsService.class).loadUserByUsername("admin1@example.com"));
+            String[] googleTokens = new String[GOOGLE_ACCOUNTS];
+            for (int i = 0; i < GOOGLE_ACCOUNTS; i++) {
+                googleTokens[i] = google.issueIdToken(CLIENT_ID, "carga-google-" + i, "carga-google" + i + "@example.com", "Carga " + i);
+            }
+
+            for (String name : scenarios) {
+                Scenario scenario = scenario(name.trim(), baseUrl, adminToken, seededIds, googleTokens);
+                ScenarioResult result = measure(scenario);
+                System.out.printf("[load-test] %-10s %8d ok %6d errores %9.1f req/s  p50 %8.3f ms  p95 %8.3f ms  p99 %8.3f ms%n",
+                        result.scenario(), result.requests(), result.errors(), result.throughputPerSecond(),
+                        result.p50Ms(), result.p95Ms(), result.p99Ms());
+                results.put(result.scenario(), result);
+            }
+        }
+
+        writeReport(results, report);
+        System.out.println("[load-test] Informe en " + report.toAbsolutePath());
+        if (updateBaseline) {
+            writeReport(results, baseline);
+            System.out.println("[load-test] Linea base actualizada en " + baseline.toAbsolutePath());
+            return List.of();
+        }
+        return compare(results);
+    }
+
+    private ConfigurableApplicationContext start(GoogleStubServer google) {
+        // devtools esta en el classpath de test: sin reinicio en otro classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(GhostyBackendApplication.class)
+                .run("--spring.profiles.active=test",
+                        "--server.port=0",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN",
+                        // Se mide la aplicacion, no el limite de intentos de login
+                        "--auth.rate-limit.enabled=false",
+                        "--security.password-hashing.queue-capacity=" + Math.max(64, clients * 2),
+                        "--google.auth.jwks-uri=" + google.jwksUri());
+    }
+
+    // Usuarios con la misma contraseña que los del seed (un solo hash BCrypt para todos)
+    private long[] seed(JdbcTemplate jdbc) {
+        String hash = jdbc.queryForObject("select password from users where id = 1", String.class);
+        jdbc.update("insert into users (id, username, email, password, rol_id) "
+                + "select next value for users_seq, concat('carga', r.n), concat('carga', r.n, '@example.com'), ?, 2 "
+                + "from system_range(1, ?) as r(n)", hash, users);
+        return jdbc.queryForList("select id from users where email like 'carga%@example.com' order by id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private Scenario scenario(String name, String baseUrl, String adminToken, long[] seededIds, String[] googleTokens) {
+        return switch (name) {
+            case "login" -> new Scenario(name, 200, n -> post(baseUrl + "/v1/api/auth/login",
+                    "{\"email\":\"carga" + (n % users + 1) + "@example.com\",\"password\":\"" + PASSWORD + "\"}"));
+            case "register" -> new Scenario(name, 200, n -> post(baseUrl + "/v1/api/auth/register",
+                    "{\"username\":\"registro" + n + "\",\"email\":\"registro" + n + "@example.com\",\"password\":\"" + PASSWORD + "\"}"));
+            case "google" -> new Scenario(name, 200, n -> post(baseUrl + "/v1/api/auth/google",
+                    "{\"token\":\"" + googleTokens[(int) (n % GOOGLE_ACCOUNTS)] + "\"}"));
+            case "users-list" -> new Scenario(name, 200, n -> get(baseUrl + "/v1/api/users?page=" + n % 50 + "&size=20", adminToken));
+            case "users-get" -> new Scenario(name, 200, n -> get(baseUrl + "/v1/api/users/" + seededIds[(int) (n % seededIds.length)], adminToken));
+            default -> throw new IllegalArgumentException("Escenario desconocido: " + name);
+        };
+    }
+
+    private ScenarioResult measure(Scenario scenario) throws InterruptedException {
+        drive(scenario, warmup, new ArrayList<>());
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        long start = System.nanoTime();
+        drive(scenario, duration, recorders);
+        return LatencyRecorder.merge(scenario.name(), recorders, System.nanoTime() - start);
+    }
+
+    private void drive(Scenario scenario, Duration length, List<LatencyRecorder> recorders) throws InterruptedException {
+        long deadline = System.nanoTime() + length.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = scenario.request().apply(sequence.incrementAndGet());
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == scenario.expectedStatus();
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        recorder.record(System.nanoTime() - sent, ok);
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private List<String> compare(Map<String, ScenarioResult> results) throws IOException {
+        Map<String, ScenarioResult> baselineResults = new LinkedHashMap<>();
+        if (Files.exists(baseline)) {
+            JsonNode scenariosNode = objectMapper.readTree(baseline.toFile()).path("scenarios");
+            scenariosNode.properties().forEach(entry ->
+                    baselineResults.put(entry.getKey(), objectMapper.convertValue(entry.getValue(), ScenarioResult.class)));
+        } else {
+            System.out.println("[load-test] Sin linea base en " + baseline + ": solo se comprueba la tasa de errores");
+        }
+        List<String> regressions = new ArrayList<>();
+        results.values().forEach(result -> regressions.addAll(
+                result.regressionsAgainst(baselineResults.get(result.scenario()), maxRegression, maxErrorRate)));
+        return regressions;
+    }
+
+    private void writeReport(Map<String, ScenarioResult> results, Path path) throws IOException {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", users);
+        config.put("clients", clients);
+        config.put("warmupSeconds", warmup.toSeconds());
+        config.put("durationSeconds", duration.toSeconds());
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("timestamp", Instant.now().toString());
+        document.put("config", config);
+        document.put("scenarios", results);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.writeValue(path.toFile(), document);
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    /**
+     * Peticion n-esima del escenario y estado HTTP que cuenta como correcto.
+     */
+    private record Scenario(String name, int expectedStatus, LongFunction<HttpRequest> request) {
+    }
+}
@@ -0,0 +1,47 @@
+package org.ghosty.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de un escenario: peticiones correctas, errores (estado HTTP inesperado o fallo de red),
+ * peticiones correctas por segundo y percentiles de latencia en milisegundos.
+ */
+record ScenarioResult(String scenario,
+                      long requests,
+                      long errors,
+                      double throughputPerSecond,
+                      double p50Ms,
+                      double p95Ms,
+                      double p99Ms) {
+
+    double errorRate() {
+        long total = requests + errors;
+        return total == 0 ? 0 : (double) errors / total;
+    }
+
+    /**
+     * Regresiones frente a la linea base: p95/p99 por encima o throughput por debajo de ella en mas
+     * de {@code maxRegression} (0.3 = 30%), o tasa de errores mayor que {@code maxErrorRate}.
+     */
+    List<String> regressionsAgainst(ScenarioResult baseline, double maxRegression, double maxErrorRate) {
+        List<String> regressions = new ArrayList<>();
+        if (errorRate() > maxErrorRate) {
+            regressions.add(String.format("%s: %.2f%% de errores (maximo %.2f%%)", scenario, errorRate() * 100, maxErrorRate * 100));
+        }
+        if (baseline == null) {
+            return regressions;
+        }
+        if (p95Ms > baseline.p95Ms * (1 + maxRegression)) {
+            regressions.add(String.format("%s: p95 %.3f ms frente a %.3f ms de la linea base", scenario, p95Ms, baseline.p95Ms));
+        }
+        if (p99Ms > baseline.p99Ms * (1 + maxRegression)) {
+            regressions.add(String.format("%s: p99 %.3f ms frente a %.3f ms de la linea base", scenario, p99Ms, baseline.p99Ms));
+        }
+        if (throughputPerSecond < baseline.throughputPerSecond * (1 - maxRegression)) {
+            regressions.add(String.format("%s: %.1f peticiones/s frente a %.1f de la linea base",
+                    scenario, throughputPerSecond, baseline.throughputPerSecond));
+        }
+        return regressions;
+    }
+}
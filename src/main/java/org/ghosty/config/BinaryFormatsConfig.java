@@ -0,0 +1,66 @@
+package org.ghosty.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import org.ghosty.dto.response.AuthResponseDTO;
+import org.ghosty.dto.response.CursorPageResponseDTO;
+import org.ghosty.dto.response.ErrorResponseDTO;
+import org.ghosty.dto.response.PageResponseDTO;
+import org.ghosty.dto.response.UserResponseDTO;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * CBOR ({@code application/cbor}) y Smile ({@code application/x-jackson-smile}) ademas de JSON, segun la
+ * cabecera Accept, para las llamadas entre servicios. Los mappers salen del mismo builder de Spring Boot
+ * que el de JSON (misma configuracion de fechas, modulos, etc.).
+ * Los serializadores de los DTO de respuesta se resuelven al arrancar, no en la primera peticion.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    private static final TypeFactory TYPES = TypeFactory.defaultInstance();
+    private static final List<JavaType> RESPONSE_TYPES = List.of(
+            TYPES.constructType(UserResponseDTO.class),
+            TYPES.constructParametricType(PageResponseDTO.class, UserResponseDTO.class),
+            TYPES.constructParametricType(CursorPageResponseDTO.class, UserResponseDTO.class),
+            TYPES.constructType(AuthResponseDTO.class),
+            TYPES.constructType(ErrorResponseDTO.class)
+    );
+
+    private final ObjectMapper objectMapper;
+
+    public BinaryFormatsConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void prebuildJsonWriters() {
+        prebuildWriters(objectMapper);
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(prebuildWriters(builder.factory(new CBORFactory()).build()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(prebuildWriters(builder.factory(new SmileFactory()).build()));
+    }
+
+    // writerFor resuelve el serializador raiz y lo deja en el cache del mapper, que es el que usa el conversor
+    private static ObjectMapper prebuildWriters(ObjectMapper mapper) {
+        RESPONSE_TYPES.forEach(mapper::writerFor);
+        return mapper;
+    }
+}
@@ -0,0 +1,15 @@
+package org.ghosty.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa el CacheManager de Caffeine; los caches y sus limites se declaran en
+ * {@code spring.cache.*} para que actuator publique sus estadisticas.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USER_DETAILS_CACHE = "userDetails";
+}
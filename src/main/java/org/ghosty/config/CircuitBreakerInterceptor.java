@@ -0,0 +1,147 @@
+package org.ghosty.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.ghosty.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breaker por host para el {@code RestTemplate} saliente.
+ * Tras {@code failure-threshold} fallos seguidos (error de red, timeout o 5xx) el circuito se abre y las
+ * llamadas a ese host fallan al instante con 503 durante {@code open-duration}; despues se deja pasar una
+ * sola llamada de prueba que lo cierra si va bien o lo vuelve a abrir si falla.
+ * Esperar una conexion libre del pool (bulkhead lleno) no cuenta como fallo del host.
+ */
+@Component
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerInterceptor.class);
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public CircuitBreakerInterceptor(@Value("${google.http.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                     @Value("${google.http.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                     MeterRegistry meterRegistry) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        Circuit circuit = circuits.computeIfAbsent(String.valueOf(request.getURI().getHost()), Circuit::new);
+        if (!circuit.tryAcquire(System.nanoTime())) {
+            circuit.rejected.increment();
+            throw new ServiceUnavailableException("El servicio de Google no responde. Inténtalo de nuevo en unos segundos");
+        }
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (ConnectionRequestTimeoutException e) {
+            circuit.release();
+            throw new ServiceUnavailableException("Demasiadas llamadas a Google en curso. Inténtalo de nuevo en unos segundos");
+        } catch (IOException | RuntimeException e) {
+            circuit.onFailure(System.nanoTime());
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            circuit.onFailure(System.nanoTime());
+        } else {
+            circuit.onSuccess();
+        }
+        return response;
+    }
+
+    /**
+     * Estado del circuito de un host (0 cerrado, 1 abierto, 2 semiabierto), para tests.
+     */
+    int state(String host) {
+        Circuit circuit = circuits.get(host);
+        return circuit == null ? Circuit.CLOSED : circuit.state();
+    }
+
+    private final class Circuit {
+
+        static final int CLOSED = 0;
+        static final int OPEN = 1;
+        static final int HALF_OPEN = 2;
+
+        private final String host;
+        private final Counter rejected;
+        private int state = CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        Circuit(String host) {
+            this.host = host;
+            this.rejected = Counter.builder("google.http.circuit.rejected")
+                    .description("Llamadas salientes rechazadas con el circuito abierto")
+                    .tag("host", host)
+                    .register(meterRegistry);
+            Gauge.builder("google.http.circuit.state", this, Circuit::state)
+                    .description("Circuito del host: 0 cerrado, 1 abierto, 2 semiabierto")
+                    .tag("host", host)
+                    .register(meterRegistry);
+        }
+
+        // Solo estado en memoria: el lock nunca se mantiene durante la llamada HTTP
+        synchronized boolean tryAcquire(long now) {
+            if (state == OPEN && now - openedAt >= openNanos) {
+                state = HALF_OPEN;
+            }
+            if (state == CLOSED) {
+                return true;
+            }
+            if (state == HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized void onSuccess() {
+            if (state != CLOSED) {
+                log.info("Circuito hacia {} cerrado", host);
+            }
+            state = CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure(long now) {
+            trialInFlight = false;
+            consecutiveFailures++;
+            if (state == HALF_OPEN || (state == CLOSED && consecutiveFailures >= failureThreshold)) {
+                log.warn("Circuito hacia {} abierto tras {} fallos seguidos", host, consecutiveFailures);
+                state = OPEN;
+                openedAt = now;
+            }
+        }
+
+        synchronized int state() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.ghosty.config;
+
+import org.ghosty.security.HttpJwksSource;
+import org.ghosty.security.JwksKeyCache;
+import org.ghosty.security.JwksSource;
+import org.ghosty.security.ResourceJwksSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class GoogleAuthConfig {
+
+    /**
+     * {@code google.auth.jwks-uri} acepta una URL http(s) o cualquier recurso Spring
+     * ({@code classpath:}, {@code file:}) para tests sin red.
+     */
+    @Bean
+    @ConditionalOnMissingBean(JwksSource.class)
+    public JwksSource googleJwksSource(RestTemplate restTemplate,
+                                       ResourceLoader resourceLoader,
+                                       @Value("${google.auth.jwks-uri}") String jwksUri) {
+        if (jwksUri.startsWith("http://") || jwksUri.startsWith("https://")) {
+            return new HttpJwksSource(restTemplate, jwksUri);
+        }
+        return new ResourceJwksSource(resourceLoader.getResource(jwksUri));
+    }
+
+    @Bean
+    public JwksKeyCache googleJwksKeyCache(JwksSource googleJwksSource,
+                                           @Value("${google.auth.jwks-min-refetch-seconds:30}") long minRefetchSeconds) {
+        return new JwksKeyCache(googleJwksSource, Duration.ofSeconds(minRefetchSeconds));
+    }
+}
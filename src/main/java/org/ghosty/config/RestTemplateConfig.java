@@ -1,14 +1,86 @@
 package org.ghosty.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
+/**
+ * Cliente HTTP saliente (llamadas a Google: JWKS y tokeninfo).
+ * <ul>
+ *     <li>Pool de conexiones keep-alive con timeouts de conexion y de lectura.</li>
+ *     <li>Bulkhead por host: como mucho {@code max-connections-per-host} llamadas a la vez; quien espera
+ *     mas de {@code acquire-timeout} por una conexion libre recibe 503 en vez de quedarse bloqueado.</li>
+ *     <li>Circuit breaker por host ({@link CircuitBreakerInterceptor}).</li>
+ *     <li>Latencia en {@code http.client.requests} (RestTemplateBuilder) y uso del pool en
+ *     {@code google.http.pool.connections}.</li>
+ * </ul>
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager googleConnectionManager(
+            @Value("${google.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${google.http.read-timeout:3s}") Duration readTimeout,
+            @Value("${google.http.max-connections-per-host:20}") int maxConnectionsPerHost,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                // JWKS y tokeninfo estan en hosts distintos
+                .setMaxConnTotal(maxConnectionsPerHost * 2)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+
+        Gauge.builder("google.http.pool.connections", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("Conexiones del pool HTTP saliente")
+                .tag("state", "leased")
+                .register(meterRegistry);
+        Gauge.builder("google.http.pool.connections", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .tag("state", "available")
+                .register(meterRegistry);
+        Gauge.builder("google.http.pool.connections", connectionManager, cm -> cm.getTotalStats().getPending())
+                .tag("state", "pending")
+                .register(meterRegistry);
+        return connectionManager;
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     PoolingHttpClientConnectionManager googleConnectionManager,
+                                     CircuitBreakerInterceptor circuitBreakerInterceptor,
+                                     @Value("${google.http.read-timeout:3s}") Duration readTimeout,
+                                     @Value("${google.http.acquire-timeout:200ms}") Duration acquireTimeout) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(googleConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(acquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .disableAutomaticRetries()
+                .build();
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors(circuitBreakerInterceptor)
+                .build();
     }
 }
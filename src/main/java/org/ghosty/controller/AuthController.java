@@ -1,11 +1,17 @@
 package org.ghosty.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.ghosty.dto.response.AuthResponseDTO;
 import org.ghosty.dto.request.LoginRequestDTO;
 import org.ghosty.dto.request.RegisterRequestDTO;
 import org.ghosty.dto.request.GoogleLoginRequestDTO;
+import org.ghosty.dto.request.RevokeTokenRequestDTO;
+import org.ghosty.exception.BadRequestException;
+import org.ghosty.security.AuthRateLimiter;
 import org.ghosty.service.AuthenticationService;
+import org.ghosty.service.TokenRevocationService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,18 +20,37 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthenticationService authService;
+    private final TokenRevocationService tokenRevocationService;
+    private final AuthRateLimiter authRateLimiter;
 
-    public AuthController(AuthenticationService authService) {
+    public AuthController(AuthenticationService authService,
+                          TokenRevocationService tokenRevocationService,
+                          AuthRateLimiter authRateLimiter) {
         this.authService = authService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.authRateLimiter = authRateLimiter;
     }
 
+    // Los flujos corren en el hilo de la peticion; solo BCrypt pasa por el pool de hashing (acotado a los
+    // nucleos, via OffloadingPasswordEncoder), asi que la BD o Google lentos no ocupan huecos de ese pool.
+    // Si esta saturado se responde 503 al instante.
+    // Login y registro pasan antes por el limite por IP y por email: el 429 no llega a tocar BCrypt
+
     @PostMapping("/register")
-    public ResponseEntity<AuthResponseDTO> register( @Valid  @RequestBody RegisterRequestDTO request) {
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequestDTO request, HttpServletRequest http) {
+        long retryAfter = authRateLimiter.acquire(http.getRemoteAddr(), request.email());
+        if (retryAfter > 0) {
+            return authRateLimiter.tooManyRequests(http.getRequestURI(), retryAfter);
+        }
         return ResponseEntity.ok(authService.register(request));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDTO> login( @Valid  @RequestBody LoginRequestDTO request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequestDTO request, HttpServletRequest http) {
+        long retryAfter = authRateLimiter.acquire(http.getRemoteAddr(), request.email());
+        if (retryAfter > 0) {
+            return authRateLimiter.tooManyRequests(http.getRequestURI(), retryAfter);
+        }
         return ResponseEntity.ok(authService.authenticate(request));
     }
 
@@ -33,4 +58,25 @@ public class AuthController {
     public ResponseEntity<AuthResponseDTO> loginWithGoogle(@Valid @RequestBody GoogleLoginRequestDTO request) {
         return ResponseEntity.ok(authService.authenticateWithGoogle(request));
     }
-}
\ No newline at end of file
+
+    /**
+     * Revoca el token con el que se hace la peticion (cabecera Authorization).
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new BadRequestException("Falta el token Bearer");
+        }
+        tokenRevocationService.revoke(authorization.substring(7));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revoca un token cualquiera (p. ej. filtrado). Como en RFC 7009 responde 204 aunque el token ya no sea valido.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@Valid @RequestBody RevokeTokenRequestDTO request) {
+        tokenRevocationService.revoke(request.token());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,26 @@
+package org.ghosty.controller;
+
+import org.ghosty.security.RoleRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/api/roles")
+public class RoleController {
+
+    private final RoleRegistry roleRegistry;
+
+    public RoleController(RoleRegistry roleRegistry) {
+        this.roleRegistry = roleRegistry;
+    }
+
+    /**
+     * Recarga el registro de roles en memoria tras modificar la tabla roles
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Integer>> refresh() {
+        return ResponseEntity.ok(Map.of("roles", roleRegistry.refresh()));
+    }
+}
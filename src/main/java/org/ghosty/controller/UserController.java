@@ -1,38 +1,119 @@
 package org.ghosty.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.ghosty.dto.request.BulkDeleteRequestDTO;
+import org.ghosty.dto.request.BulkRoleChangeRequestDTO;
 import org.ghosty.dto.request.CreateUserRequestDTO;
 import org.ghosty.dto.request.UpdateUserRequestDTO;
+import org.ghosty.dto.response.BatchImportResponseDTO;
+import org.ghosty.dto.response.BulkOperationResponseDTO;
+import org.ghosty.dto.response.CursorPageResponseDTO;
+import org.ghosty.dto.response.PageResponseDTO;
 import org.ghosty.dto.response.UserResponseDTO;
+import org.ghosty.repository.UserRepository.UserVersion;
+import org.ghosty.service.UserExportService;
+import org.ghosty.service.UserImportService;
 import org.ghosty.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/v1/api/users")
 public class UserController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserExportService userExportService, UserImportService userImportService) {
         this.userService = userService;
+        this.userExportService = userExportService;
+        this.userImportService = userImportService;
     }
 
+    /**
+     * Listado paginado. Como el resto de endpoints responde JSON, CBOR o Smile segun la cabecera Accept.
+     * Lleva ETag: con If-None-Match de la misma pagina sin cambios se responde 304 tras leer solo ids y versiones.
+     */
     @GetMapping("")
-    public ResponseEntity<Page<UserResponseDTO>> getUsers(Pageable pageable) {
-        return ResponseEntity.ok(userService.findAllDTO(pageable));
+    public ResponseEntity<PageResponseDTO<UserResponseDTO>> getUsers(Pageable pageable,
+                                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                     WebRequest request, HttpServletResponse response) {
+        Page<UserVersion> versions = userService.findVersions(pageable);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // checkNotModified compara con If-None-Match, pone la cabecera ETag y, si coincide, el 304 sin cuerpo
+        if (request.checkNotModified(UserETags.ofPage(versions, UserETags.variant(accept)))) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponseDTO.of(userService.findAllDTO(versions)));
+    }
+
+    /**
+     * Listado por cursor para paginar en profundidad: {@code ?size=50&sort=username,desc} para la
+     * primera pagina y {@code ?cursor=<next>} para las siguientes (el cursor ya lleva el orden).
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponseDTO<UserResponseDTO>> scrollUsers(@RequestParam(required = false) String cursor,
+                                                                              @RequestParam(defaultValue = "20") int size,
+                                                                              @SortDefault(sort = "id") Sort sort) {
+        return ResponseEntity.ok(userService.scrollDTO(cursor, size, sort));
     }
 
+    /**
+     * Descarga todos los usuarios ({@code ?format=ndjson|csv}) escribiendo las filas segun se leen,
+     * sin cargar la tabla en memoria.
+     */
+    @GetMapping("/export")
+    public void exportUsers(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        UserExportService.Format exportFormat = UserExportService.Format.parse(format);
+        response.setContentType(exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + exportFormat.extension() + "\"");
+        userExportService.export(exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Con ETag {@code "<id>-<version>"} (mas el sufijo del formato); si coincide con If-None-Match, 304
+     * consultando solo la version.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Long id,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                       WebRequest request, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (request.checkNotModified(UserETags.of(id, userService.findVersion(id), UserETags.variant(accept)))) {
+            return null;
+        }
         return  ResponseEntity.ok(userService.findById(id));
     }
 
+    /**
+     * Con {@code If-Match: "<id>-<version>"} solo se actualiza si el usuario no ha cambiado (si no, 412).
+     * Devuelve el ETag de la version nueva.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<UserResponseDTO> updateUser (@PathVariable  Long id, @Valid @RequestBody UpdateUserRequestDTO updateUserRequestDTO) {
-        return ResponseEntity.ok(userService.updateUser(id,updateUserRequestDTO));
+    public ResponseEntity<UserResponseDTO> updateUser (@PathVariable  Long id,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                       @Valid @RequestBody UpdateUserRequestDTO updateUserRequestDTO) {
+        UserService.VersionedUser updated = userService.updateUser(id, updateUserRequestDTO, UserETags.expectedVersion(ifMatch, id));
+        return ResponseEntity.ok()
+                .eTag(UserETags.of(id, updated.version(), UserETags.variant(accept)))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(updated.user());
     }
 
     @PostMapping("")
@@ -40,6 +121,41 @@ public class UserController {
         return ResponseEntity.ok(userService. createUser(createUserRequestDTO));
     }
 
+    /**
+     * Alta masiva: array JSON de usuarios (mismo formato que el alta individual) leido en streaming.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchImportResponseDTO> importUsers(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(userImportService.importJson(request.getInputStream()));
+    }
+
+    /**
+     * Alta masiva desde CSV con cabecera username,email,password,rol.
+     */
+    @PostMapping(value = "/batch", consumes = "text/csv")
+    public ResponseEntity<BatchImportResponseDTO> importUsersCsv(HttpServletRequest request) throws IOException {
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+        return ResponseEntity.ok(userImportService.importCsv(new InputStreamReader(request.getInputStream(), charset)));
+    }
+
+    /**
+     * Borrado masivo: {@code {"ids": [...]}} o {@code {"filter": {"rol": "USER", "emailDomain": "example.com"}}}.
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkOperationResponseDTO> bulkDelete(@RequestBody BulkDeleteRequestDTO bulkDeleteRequestDTO) {
+        return ResponseEntity.ok(userService.bulkDelete(bulkDeleteRequestDTO));
+    }
+
+    /**
+     * Cambio de rol masivo, con la misma seleccion que el borrado y el rol destino en {@code rol}.
+     */
+    @PostMapping("/bulk/rol")
+    public ResponseEntity<BulkOperationResponseDTO> bulkChangeRol(@Valid @RequestBody BulkRoleChangeRequestDTO bulkRoleChangeRequestDTO) {
+        return ResponseEntity.ok(userService.bulkChangeRol(bulkRoleChangeRequestDTO));
+    }
+
     @DeleteMapping("/{id}")
     public void deleteUser(@PathVariable Long id) {
         userService.deleteUser(id);
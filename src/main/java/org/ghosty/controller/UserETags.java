@@ -0,0 +1,128 @@
+package org.ghosty.controller;
+
+import org.ghosty.exception.PreconditionFailedException;
+import org.ghosty.repository.UserRepository.UserVersion;
+import org.springframework.data.domain.Page;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/**
+ * ETags fuertes de la API de usuarios a partir de la version de la fila ({@code User.version}):
+ * {@code "<id>-<version>"} para un usuario y un hash de ids, versiones y total para una pagina.
+ * Cada formato negociado por Accept (JSON, CBOR, Smile) es una representacion distinta con su propio ETag:
+ * JSON sin sufijo y {@code -cbor} / {@code -smile} para los binarios. Las respuestas llevan {@code Vary: Accept}.
+ */
+final class UserETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Formatos de respuesta en el orden de los conversores de mensajes: con comodines o sin Accept gana JSON. */
+    private enum Variant {
+        JSON(MediaType.APPLICATION_JSON, ""),
+        CBOR(MediaType.APPLICATION_CBOR, "-cbor"),
+        SMILE(MediaType.parseMediaType("application/x-jackson-smile"), "-smile");
+
+        private final MediaType mediaType;
+        private final String suffix;
+
+        Variant(MediaType mediaType, String suffix) {
+            this.mediaType = mediaType;
+            this.suffix = suffix;
+        }
+    }
+
+    private UserETags() {
+    }
+
+    /**
+     * Sufijo del formato que elegira la negociacion de contenido para esta cabecera Accept: el primero de
+     * los tipos aceptados (por calidad y especificidad) que se pueda producir; JSON si no hay ninguno.
+     */
+    static String variant(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() <= 0) {
+                continue;
+            }
+            for (Variant variant : Variant.values()) {
+                if (type.isCompatibleWith(variant.mediaType)) {
+                    return variant.suffix;
+                }
+            }
+        }
+        return "";
+    }
+
+    static String of(long id, long version, String variant) {
+        return "\"" + id + "-" + version + variant + "\"";
+    }
+
+    // No basta con la version maxima y el numero de filas: editar una fila con version menor que la
+    // maxima no los cambia. Entran todos los pares (id, version) de la pagina y el total del listado
+    static String ofPage(Page<UserVersion> versions, String variant) {
+        long hash = mix(FNV_OFFSET, versions.getTotalElements());
+        for (UserVersion row : versions.getContent()) {
+            hash = mix(mix(hash, row.getId()), row.getVersion());
+        }
+        return "\"p" + versions.getNumber() + "-" + Long.toHexString(hash) + variant + "\"";
+    }
+
+    /**
+     * Version que exige If-Match para el usuario {@code id}: {@code null} sin cabecera o con {@code *}.
+     * Con varias etiquetas vale la primera de este usuario, sea cual sea su formato (todas las
+     * representaciones de una version tienen el mismo contenido); si no hay ninguna, o es debil (If-Match
+     * compara en fuerte), no puede coincidir y se responde 412.
+     */
+    static Long expectedVersion(String ifMatch, long id) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                int end = tag.indexOf('-', prefix.length());
+                if (end < 0) {
+                    end = tag.length() - 1;
+                } else if (!isSuffix(tag.substring(end, tag.length() - 1))) {
+                    break;
+                }
+                try {
+                    return Long.parseLong(tag, prefix.length(), end, 10);
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+        throw new PreconditionFailedException("If-Match no corresponde a ninguna versión del usuario con id " + id);
+    }
+
+    private static boolean isSuffix(String suffix) {
+        for (Variant variant : Variant.values()) {
+            if (variant.suffix.equals(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
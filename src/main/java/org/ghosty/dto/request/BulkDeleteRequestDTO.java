@@ -0,0 +1,13 @@
+package org.ghosty.dto.request;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Usuarios a borrar: lista de ids o filtro (uno de los dos).
+ */
+@Builder
+public record BulkDeleteRequestDTO(List<Long> ids,
+                                   UserFilterDTO filter) {
+}
@@ -0,0 +1,15 @@
+package org.ghosty.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Cambio de rol masivo: lista de ids o filtro (uno de los dos) y rol destino.
+ */
+@Builder
+public record BulkRoleChangeRequestDTO(List<Long> ids,
+                                       UserFilterDTO filter,
+                                       @NotBlank String rol) {
+}
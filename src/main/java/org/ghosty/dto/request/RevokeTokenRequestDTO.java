@@ -0,0 +1,8 @@
+package org.ghosty.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Builder;
+
+@Builder
+public record RevokeTokenRequestDTO(@NotBlank String token) {
+}
@@ -0,0 +1,11 @@
+package org.ghosty.dto.request;
+
+import lombok.Builder;
+
+/**
+ * Criterios para seleccionar usuarios en operaciones masivas; los campos nulos no filtran.
+ */
+@Builder
+public record UserFilterDTO(String rol,
+                            String emailDomain) {
+}
@@ -0,0 +1,9 @@
+package org.ghosty.dto.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BatchImportResponseDTO(int total, int created, int failed, List<BatchImportRowResultDTO> results) {
+}
@@ -0,0 +1,17 @@
+package org.ghosty.dto.response;
+
+import lombok.Builder;
+
+/**
+ * Resultado de una fila de una importacion masiva. {@code row} empieza en 1 (sin contar la cabecera CSV).
+ */
+@Builder
+public record BatchImportRowResultDTO(int row, String email, Status status, Long id, String error) {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,10 @@
+package org.ghosty.dto.response;
+
+import lombok.Builder;
+
+/**
+ * Resultado de una operacion masiva: usuarios seleccionados y filas realmente modificadas.
+ */
+@Builder
+public record BulkOperationResponseDTO(long matched, long affected) {
+}
@@ -0,0 +1,13 @@
+package org.ghosty.dto.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Pagina de un listado por cursor: sin total de elementos (no hace COUNT).
+ * {@code next} es el token opaco para pedir la siguiente pagina, o {@code null} si no hay mas.
+ */
+@Builder
+public record CursorPageResponseDTO<T>(List<T> content, int size, String next) {
+}
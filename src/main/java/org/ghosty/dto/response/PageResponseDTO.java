@@ -0,0 +1,19 @@
+package org.ghosty.dto.response;
+
+import lombok.Builder;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Pagina de un listado con total: los mismos nombres que el JSON de {@code PageImpl} para
+ * {@code content}, {@code number}, {@code size}, {@code totalElements} y {@code totalPages},
+ * sin {@code pageable}, {@code sort} ni los campos derivados (first, last, empty...).
+ */
+@Builder
+public record PageResponseDTO<T>(List<T> content, int number, int size, long totalElements, int totalPages) {
+
+    public static <T> PageResponseDTO<T> of(Page<T> page) {
+        return new PageResponseDTO<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,185 @@
+package org.ghosty.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.ghosty.dto.response.ErrorResponseDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escribe respuestas de error con el mismo JSON que {@link ErrorResponseDTO} sin pasar por la negociacion
+ * de contenido ni serializar el DTO en cada peticion. Cada {@link Template} se serializa una vez con
+ * Jackson (mismo ObjectMapper, mismo formato) y se parte en trozos fijos alrededor de los huecos de
+ * {@code timestamp}, {@code path} y, si el mensaje no es fijo, {@code message}; por peticion solo se
+ * escapan esos valores y se copian los trozos al output stream de la respuesta.
+ */
+@Component
+public class ErrorResponseWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String TIMESTAMP_MARK = "@@timestamp@@";
+    private static final String MESSAGE_MARK = "@@message@@";
+    private static final String PATH_MARK = "@@path@@";
+
+    private final ObjectMapper objectMapper;
+
+    public ErrorResponseWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Plantilla con estado y mensaje fijos: por peticion solo cambian timestamp y path.
+     */
+    public Template fixed(HttpStatus status, String message) {
+        return compile(status, message);
+    }
+
+    /**
+     * Plantilla con estado fijo y mensaje por peticion (p. ej. el de la excepcion).
+     */
+    public Template dynamic(HttpStatus status) {
+        return compile(status, null);
+    }
+
+    public void write(HttpServletResponse response, Template template, String path) throws IOException {
+        write(response, template, null, path);
+    }
+
+    public void write(HttpServletResponse response, Template template, String message, String path) throws IOException {
+        if (response.isCommitted()) {
+            return;
+        }
+        byte[][] values = template.values(message, path);
+        response.setStatus(template.status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(template.length(values));
+        ServletOutputStream out = response.getOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            out.write(template.literals[i]);
+            out.write(values[i]);
+        }
+        out.write(template.literals[values.length]);
+    }
+
+    /**
+     * Cuerpo completo, para respuestas que se devuelven como {@code ResponseEntity<byte[]>} (p. ej. el 429 del limite de login).
+     */
+    public byte[] render(Template template, String path) {
+        byte[][] values = template.values(null, path);
+        byte[] body = new byte[template.length(values)];
+        int offset = 0;
+        for (int i = 0; i < values.length; i++) {
+            System.arraycopy(template.literals[i], 0, body, offset, template.literals[i].length);
+            offset += template.literals[i].length;
+            System.arraycopy(values[i], 0, body, offset, values[i].length);
+            offset += values[i].length;
+        }
+        System.arraycopy(template.literals[values.length], 0, body, offset, template.literals[values.length].length);
+        return body;
+    }
+
+    private Template compile(HttpStatus status, String message) {
+        ErrorResponseDTO error = ErrorResponseDTO.builder()
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message != null ? message : MESSAGE_MARK)
+                .path(PATH_MARK)
+                .build();
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(error)
+                    .replace("\"timestamp\":null", "\"timestamp\":\"" + TIMESTAMP_MARK + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la plantilla de error " + status, e);
+        }
+
+        // Trozos fijos y, entre cada dos, el hueco que se rellena por peticion (en orden de aparicion)
+        List<byte[]> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int next = -1;
+            Slot slot = null;
+            for (Slot candidate : Slot.values()) {
+                int at = json.indexOf(candidate.mark, from);
+                if (at >= 0 && (next < 0 || at < next)) {
+                    next = at;
+                    slot = candidate;
+                }
+            }
+            if (slot == null) {
+                literals.add(json.substring(from).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            literals.add(json.substring(from, next).getBytes(StandardCharsets.UTF_8));
+            slots.add(slot);
+            from = next + slot.mark.length();
+        }
+        return new Template(status.value(), literals.toArray(byte[][]::new), slots.toArray(Slot[]::new));
+    }
+
+    private enum Slot {
+        TIMESTAMP(TIMESTAMP_MARK),
+        MESSAGE(MESSAGE_MARK),
+        PATH(PATH_MARK);
+
+        private final String mark;
+
+        Slot(String mark) {
+            this.mark = mark;
+        }
+    }
+
+    /**
+     * Respuesta de error serializada de antemano. Inmutable: se crea una vez y se comparte entre hilos.
+     */
+    public static final class Template {
+
+        private final int status;
+        private final byte[][] literals;
+        private final Slot[] slots;
+        private final int literalsLength;
+
+        private Template(int status, byte[][] literals, Slot[] slots) {
+            this.status = status;
+            this.literals = literals;
+            this.slots = slots;
+            int length = 0;
+            for (byte[] literal : literals) {
+                length += literal.length;
+            }
+            this.literalsLength = length;
+        }
+
+        private byte[][] values(String message, String path) {
+            byte[][] values = new byte[slots.length][];
+            for (int i = 0; i < slots.length; i++) {
+                values[i] = switch (slots[i]) {
+                    case TIMESTAMP -> TIMESTAMP_FORMAT.format(LocalDateTime.now()).getBytes(StandardCharsets.US_ASCII);
+                    case MESSAGE -> JsonStringEncoder.getInstance().quoteAsUTF8(message != null ? message : "");
+                    case PATH -> JsonStringEncoder.getInstance().quoteAsUTF8(path != null ? path : "");
+                };
+            }
+            return values;
+        }
+
+        private int length(byte[][] values) {
+            int length = literalsLength;
+            for (byte[] value : values) {
+                length += value.length;
+            }
+            return length;
+        }
+    }
+}
@@ -4,93 +4,171 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.ghosty.dto.response.ErrorResponseDTO;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Las respuestas de error (incluidas las 401/403 de mucho volumen) se escriben con plantillas ya
+ * serializadas de {@link ErrorResponseWriter}; solo los errores de validacion, con su mapa de campos,
+ * pasan por Jackson.
+ */
 @RestControllerAdvice
 public class GeneralControllerAdvice {
 
+    private final ErrorResponseWriter writer;
+    private final ErrorResponseWriter.Template notFound;
+    private final ErrorResponseWriter.Template badRequest;
+    private final ErrorResponseWriter.Template conflict;
+    private final ErrorResponseWriter.Template preconditionFailed;
+    private final ErrorResponseWriter.Template concurrentUpdate;
+    private final ErrorResponseWriter.Template unauthorized;
+    private final ErrorResponseWriter.Template serviceUnavailable;
+    private final ErrorResponseWriter.Template internalError;
+    private final ErrorResponseWriter.Template databaseSaturated;
+    private final ErrorResponseWriter.Template badCredentials;
+    private final ErrorResponseWriter.Template accessDenied;
+    private final ErrorResponseWriter.Template expiredJwt;
+    private final ErrorResponseWriter.Template malformedJwt;
+    private final ErrorResponseWriter.Template jwtSignature;
+    private final ErrorResponseWriter.Template unreadableBody;
+    private final ErrorResponseWriter.Template unexpectedError;
+    private final ErrorResponseWriter.Template serverError;
+
+    public GeneralControllerAdvice(ErrorResponseWriter writer) {
+        this.writer = writer;
+        this.notFound = writer.dynamic(HttpStatus.NOT_FOUND);
+        this.badRequest = writer.dynamic(HttpStatus.BAD_REQUEST);
+        this.conflict = writer.dynamic(HttpStatus.CONFLICT);
+        this.preconditionFailed = writer.dynamic(HttpStatus.PRECONDITION_FAILED);
+        this.concurrentUpdate = writer.fixed(HttpStatus.CONFLICT, "El recurso ha sido modificado por otra petición. Vuelve a leerlo e inténtalo de nuevo");
+        this.unauthorized = writer.dynamic(HttpStatus.UNAUTHORIZED);
+        this.serviceUnavailable = writer.dynamic(HttpStatus.SERVICE_UNAVAILABLE);
+        this.internalError = writer.dynamic(HttpStatus.INTERNAL_SERVER_ERROR);
+        this.databaseSaturated = writer.fixed(HttpStatus.SERVICE_UNAVAILABLE, "Base de datos saturada, vuelve a intentarlo en unos segundos");
+        this.badCredentials = writer.fixed(HttpStatus.UNAUTHORIZED, "Credenciales inválidas. Email o contraseña incorrectos");
+        this.accessDenied = writer.fixed(HttpStatus.FORBIDDEN, "Acceso denegado. No tienes permisos para acceder a este recurso");
+        this.expiredJwt = writer.fixed(HttpStatus.UNAUTHORIZED, "Token JWT expirado. Por favor, inicia sesión nuevamente");
+        this.malformedJwt = writer.fixed(HttpStatus.UNAUTHORIZED, "Token JWT inválido. Formato incorrecto");
+        this.jwtSignature = writer.fixed(HttpStatus.UNAUTHORIZED, "Token JWT inválido. Firma incorrecta");
+        this.unreadableBody = writer.fixed(HttpStatus.BAD_REQUEST, "Error al leer el cuerpo de la solicitud. Verifica que el JSON esté bien formado");
+        this.unexpectedError = writer.fixed(HttpStatus.INTERNAL_SERVER_ERROR, "Ha ocurrido un error inesperado");
+        this.serverError = writer.fixed(HttpStatus.INTERNAL_SERVER_ERROR, "Ha ocurrido un error interno en el servidor");
+    }
+
     /**
      * Maneja excepciones de recursos no encontrados
      */
     @ExceptionHandler(ResourceNotFoundException.class)
-    public ResponseEntity<ErrorResponseDTO> handleResourceNotFoundException(
+    public void handleResourceNotFoundException(
             ResourceNotFoundException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.NOT_FOUND.value())
-                .error(HttpStatus.NOT_FOUND.getReasonPhrase())
-                .message(ex.getMessage())
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, notFound, ex.getMessage(), request.getRequestURI());
     }
 
     /**
      * Maneja excepciones de solicitudes incorrectas
      */
     @ExceptionHandler(BadRequestException.class)
-    public ResponseEntity<ErrorResponseDTO> handleBadRequestException(
+    public void handleBadRequestException(
             BadRequestException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.BAD_REQUEST.value())
-                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
-                .message(ex.getMessage())
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, badRequest, ex.getMessage(), request.getRequestURI());
     }
 
     /**
      * Maneja excepciones de conflictos (como email duplicado)
      */
     @ExceptionHandler(ConflictException.class)
-    public ResponseEntity<ErrorResponseDTO> handleConflictException(
+    public void handleConflictException(
             ConflictException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.CONFLICT.value())
-                .error(HttpStatus.CONFLICT.getReasonPhrase())
-                .message(ex.getMessage())
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, conflict, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Maneja If-Match que no coincide con la version actual del recurso
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public void handlePreconditionFailedException(
+            PreconditionFailedException ex,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, preconditionFailed, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Maneja el fallo del bloqueo optimista (@Version) al escribir: otra peticion ha modificado la fila
+     * entre la lectura y el UPDATE. Con If-Match es un 412, como si la version no hubiera coincidido
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public void handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null) {
+            writer.write(response, preconditionFailed, "El recurso ha cambiado desde la versión indicada en If-Match", request.getRequestURI());
+        } else {
+            writer.write(response, concurrentUpdate, request.getRequestURI());
+        }
     }
 
     /**
      * Maneja excepciones de autorización
      */
     @ExceptionHandler(UnauthorizedException.class)
-    public ResponseEntity<ErrorResponseDTO> handleUnauthorizedException(
+    public void handleUnauthorizedException(
             UnauthorizedException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNAUTHORIZED.value())
-                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
-                .message(ex.getMessage())
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, unauthorized, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Maneja la saturacion de recursos acotados (p. ej. la cola de hashing de contraseñas)
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public void handleServiceUnavailableException(
+            ServiceUnavailableException ex,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        writer.write(response, serviceUnavailable, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Sin conexion libre en el pool de Hikari dentro de connection-timeout: el pool es el limite de
+     * concurrencia contra la BD (con hilos virtuales no hay otro), asi que se responde 503 como en el hashing
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public void handleCannotCreateTransactionException(
+            CannotCreateTransactionException ex,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        writer.write(response, databaseSaturated, request.getRequestURI());
     }
 
     /**
@@ -122,111 +200,76 @@ public class GeneralControllerAdvice {
      * Maneja credenciales incorrectas de Spring Security
      */
     @ExceptionHandler(BadCredentialsException.class)
-    public ResponseEntity<ErrorResponseDTO> handleBadCredentialsException(
+    public void handleBadCredentialsException(
             BadCredentialsException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNAUTHORIZED.value())
-                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
-                .message("Credenciales inválidas. Email o contraseña incorrectos")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, badCredentials, request.getRequestURI());
     }
 
     /**
      * Maneja errores de autenticación de Spring Security
      */
     @ExceptionHandler(AuthenticationException.class)
-    public ResponseEntity<ErrorResponseDTO> handleAuthenticationException(
+    public void handleAuthenticationException(
             AuthenticationException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNAUTHORIZED.value())
-                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
-                .message("Error de autenticación: " + ex.getMessage())
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, unauthorized, "Error de autenticación: " + ex.getMessage(), request.getRequestURI());
     }
 
     /**
      * Maneja errores de acceso denegado
      */
     @ExceptionHandler(AccessDeniedException.class)
-    public ResponseEntity<ErrorResponseDTO> handleAccessDeniedException(
+    public void handleAccessDeniedException(
             AccessDeniedException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.FORBIDDEN.value())
-                .error(HttpStatus.FORBIDDEN.getReasonPhrase())
-                .message("Acceso denegado. No tienes permisos para acceder a este recurso")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, accessDenied, request.getRequestURI());
     }
 
     /**
      * Maneja tokens JWT expirados
      */
     @ExceptionHandler(ExpiredJwtException.class)
-    public ResponseEntity<ErrorResponseDTO> handleExpiredJwtException(
+    public void handleExpiredJwtException(
             ExpiredJwtException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNAUTHORIZED.value())
-                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
-                .message("Token JWT expirado. Por favor, inicia sesión nuevamente")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, expiredJwt, request.getRequestURI());
     }
 
     /**
      * Maneja tokens JWT malformados
      */
     @ExceptionHandler(MalformedJwtException.class)
-    public ResponseEntity<ErrorResponseDTO> handleMalformedJwtException(
+    public void handleMalformedJwtException(
             MalformedJwtException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNAUTHORIZED.value())
-                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
-                .message("Token JWT inválido. Formato incorrecto")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, malformedJwt, request.getRequestURI());
     }
 
     /**
      * Maneja errores de firma del token JWT
      */
     @ExceptionHandler(SignatureException.class)
-    public ResponseEntity<ErrorResponseDTO> handleSignatureException(
+    public void handleSignatureException(
             SignatureException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNAUTHORIZED.value())
-                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
-                .message("Token JWT inválido. Firma incorrecta")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, jwtSignature, request.getRequestURI());
     }
 
     /**
      * Maneja violaciones de integridad de datos (claves duplicadas, constraints, etc.)
      */
     @ExceptionHandler(DataIntegrityViolationException.class)
-    public ResponseEntity<ErrorResponseDTO> handleDataIntegrityViolationException(
+    public void handleDataIntegrityViolationException(
             DataIntegrityViolationException ex,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         String message = "Error de integridad de datos";
         
         // Intentar extraer información más específica del error
@@ -238,86 +281,59 @@ public class GeneralControllerAdvice {
             }
         }
 
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.CONFLICT.value())
-                .error(HttpStatus.CONFLICT.getReasonPhrase())
-                .message(message)
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+        writer.write(response, conflict, message, request.getRequestURI());
     }
 
     /**
      * Maneja errores de tipo de argumento incorrecto
      */
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<ErrorResponseDTO> handleMethodArgumentTypeMismatchException(
+    public void handleMethodArgumentTypeMismatchException(
             MethodArgumentTypeMismatchException ex,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         String message = String.format("El parámetro '%s' con valor '%s' no es válido. Se esperaba un tipo %s",
                 ex.getName(),
                 ex.getValue(),
                 ex.getRequiredType() != null ? ex.getRequiredType().getSimpleName() : "desconocido");
 
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.BAD_REQUEST.value())
-                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
-                .message(message)
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        writer.write(response, badRequest, message, request.getRequestURI());
     }
 
     /**
      * Maneja errores cuando el JSON no es legible o está mal formado
      */
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<ErrorResponseDTO> handleHttpMessageNotReadableException(
+    public void handleHttpMessageNotReadableException(
             HttpMessageNotReadableException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.BAD_REQUEST.value())
-                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
-                .message("Error al leer el cuerpo de la solicitud. Verifica que el JSON esté bien formado")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, unreadableBody, request.getRequestURI());
     }
 
     /**
      * Maneja RuntimeException genérica (usado actualmente en el código)
      */
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<ErrorResponseDTO> handleRuntimeException(
+    public void handleRuntimeException(
             RuntimeException ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
-                .error(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())
-                .message(ex.getMessage() != null ? ex.getMessage() : "Ha ocurrido un error inesperado")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (ex.getMessage() == null) {
+            writer.write(response, unexpectedError, request.getRequestURI());
+        } else {
+            writer.write(response, internalError, ex.getMessage(), request.getRequestURI());
+        }
     }
 
     /**
      * Maneja cualquier otra excepción no contemplada
      */
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ErrorResponseDTO> handleGlobalException(
+    public void handleGlobalException(
             Exception ex,
-            HttpServletRequest request) {
-        ErrorResponseDTO error = ErrorResponseDTO.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
-                .error(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())
-                .message("Ha ocurrido un error interno en el servidor")
-                .path(request.getRequestURI())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writer.write(response, serverError, request.getRequestURI());
     }
 }
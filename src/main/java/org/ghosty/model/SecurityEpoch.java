@@ -0,0 +1,27 @@
+package org.ghosty.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ultima epoca de seguridad de un usuario (timestamp en ms del ultimo cambio sensible). Tabla creada por la migracion V6.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "security_epochs")
+public class SecurityEpoch {
+    @Id
+    private String email;
+
+    @Column(nullable = false)
+    private long epoch;
+}
@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
 import java.util.Date;
+import java.util.Locale;
 
 @Data
 @AllArgsConstructor
@@ -15,11 +16,28 @@ import java.util.Date;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
 
+// Esquema e indices en las migraciones de Flyway (src/main/resources/db/migration)
 @Table(name = "users")
 public class User {
 
+    /**
+     * Valor de {@code password} para cuentas autenticadas externamente (Google).
+     * No es un hash BCrypt valido, asi que nunca coincide con ninguna contraseña.
+     */
+    public static final String EXTERNAL_AUTH_PASSWORD = "{external}";
+
+    /**
+     * Misma normalizacion que {@code email_normalized}, para claves en memoria (caches, duplicados en un lote).
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.toLowerCase(Locale.ROOT) : null;
+    }
+
+    // Secuencia con optimizador pooled (50 ids por llamada) en vez de IDENTITY: con IDENTITY
+    // Hibernate tiene que ejecutar cada INSERT al momento para leer el id y desactiva el batching JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -29,17 +47,34 @@ public class User {
     @NotBlank @Email
     private String email;
 
+    /**
+     * {@code lower(email)}, columna generada por la BD con indice unico (migracion V3). Las busquedas
+     * por email van por aqui; no se escribe desde JPA.
+     */
+    @Column(name = "email_normalized", insertable = false, updatable = false)
+    @ToString.Exclude
+    private String emailNormalized;
+
     @JsonIgnore
     @ToString.Exclude
     private String password;
 
-    @ManyToOne ()
+    // LAZY: el rol se resuelve por id con RoleRegistry, sin join ni SELECT a roles
+    @ManyToOne (fetch = FetchType.LAZY)
     @JoinColumn (name = "rol_id", nullable = false)
+    @ToString.Exclude
     private Rol rol;
 
     // Campo para identificar si el usuario se registró con Google
     @Column(name = "google_id")
     private String googleId;
 
+    /**
+     * Version de la fila (migracion V5): bloqueo optimista al actualizar y base de los ETags de
+     * {@code UserController}. Las sentencias masivas de {@code UserRepository} la incrementan a mano.
+     */
+    @Version
+    private Long version;
+
 
 }
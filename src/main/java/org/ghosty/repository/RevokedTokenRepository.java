@@ -0,0 +1,27 @@
+package org.ghosty.repository;
+
+import org.ghosty.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // Carga inicial de un nodo: revocaciones de tokens que aun no han caducado
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    // Sondeo incremental: revocaciones hechas (en cualquier nodo) desde el sondeo anterior
+    List<RevokedToken> findByRevokedAtAfter(Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
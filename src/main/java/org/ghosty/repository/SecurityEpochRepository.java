@@ -0,0 +1,23 @@
+package org.ghosty.repository;
+
+import org.ghosty.model.SecurityEpoch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface SecurityEpochRepository extends JpaRepository<SecurityEpoch, String> {
+
+    // Carga inicial y sondeo incremental: epocas subidas (en cualquier nodo) despues de este instante
+    List<SecurityEpoch> findByEpochGreaterThan(long since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SecurityEpoch e where e.epoch < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
@@ -1,18 +1,131 @@
 package org.ghosty.repository;
 
+import org.ghosty.dto.response.UserResponseDTO;
 import org.ghosty.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmail(String email);
-    
+
+    // Proyeccion de lectura: solo las columnas del DTO en una sentencia, sin entidades gestionadas.
+    // left join (rol_id es NOT NULL): con inner join el planificador puede empezar por roles y
+    // recorrer todos los usuarios por la clave ajena en vez de seguir el orden del indice de users
+    String USER_DTO_QUERY = "select new org.ghosty.dto.response.UserResponseDTO(u.id, u.username, u.email, r.rol) "
+            + "from User u left join u.rol r";
+
+    // Las busquedas por email van por email_normalized (indice unico) y no distinguen mayusculas; el
+    // parametro se normaliza con el mismo lower() de la BD. El rol se trae en la misma consulta (join)
+    @EntityGraph(attributePaths = "rol")
+    @Query("select u from User u where u.emailNormalized = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    @Query("select count(u) > 0 from User u where u.emailNormalized = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
+
+    // Emails (normalizados) ya registrados de un bloque de importacion, en una sola consulta;
+    // recibe los emails ya normalizados con User.normalizeEmail
+    @Query("select u.emailNormalized from User u where u.emailNormalized in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @EntityGraph(attributePaths = "rol")
     Optional<User> findByGoogleId(String googleId);
 
+    // IN sobre un UNION en vez de "google_id = ? or email_normalized = ?": un OR entre dos columnas
+    // indexadas acaba en recorrido completo en algunos motores (H2); asi cada rama usa su indice
+    @Query("select u from User u join fetch u.rol where u.id in ("
+            + "select g.id from User g where g.googleId = :googleId "
+            + "union all select e.id from User e where e.emailNormalized = lower(:email))")
+    List<User> findByGoogleIdOrEmailWithRol(@Param("googleId") String googleId, @Param("email") String email);
+
+    // Solo vincula si la cuenta aun no tiene google_id; devuelve las filas afectadas
+    @Transactional
+    @Modifying
+    @Query("update User u set u.googleId = :googleId, u.version = u.version + 1 where u.id = :id and u.googleId is null")
+    int linkGoogleId(@Param("id") Long id, @Param("googleId") String googleId);
+
     Page<User> findAll(Pageable pageable);
 
+    @Query(value = USER_DTO_QUERY, countQuery = "select count(u) from User u")
+    Page<UserResponseDTO> findAllDTO(Pageable pageable);
+
+    @Query(USER_DTO_QUERY + " where u.id = :id")
+    Optional<UserResponseDTO> findDTOById(@Param("id") Long id);
+
+    // Mismo listado con el DTO completo por id (orden libre: lo restablece quien llama)
+    @Query(USER_DTO_QUERY + " where u.id in :ids")
+    List<UserResponseDTO> findDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Peticiones condicionales (ETag): solo id y version, sin join a roles ni el resto de columnas
+    interface UserVersion {
+        Long getId();
+
+        Long getVersion();
+    }
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(value = "select u.id as id, u.version as version from User u", countQuery = "select count(u) from User u")
+    Page<UserVersion> findAllVersions(Pageable pageable);
+
+    // Listado por keyset: WHERE sobre las claves de la ultima fila en vez de OFFSET, y sin COUNT.
+    // Sin join a roles (el rol se resuelve por id): con el join el planificador puede empezar por
+    // roles y recorrer todos los usuarios por la clave ajena
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Igual pero con una cota redundante sobre la columna de orden: el predicado del keyset
+    // (col > ? or col = ? and id > ?) lleva un OR y sin esta cota el motor no acota el rango del indice (col, id)
+    Window<User> findAllByUsernameGreaterThanEqual(String username, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<User> findAllByUsernameLessThanEqual(String username, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<User> findAllByEmailGreaterThanEqual(String email, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<User> findAllByEmailLessThanEqual(String email, ScrollPosition position, Sort sort, Limit limit);
+
     Optional<User> findById(Long id);
+
+    // Claves de los usuarios afectados por una operacion masiva: el email hace falta para invalidar
+    // la cache de UserDetails y la epoca de seguridad (ambas por email)
+    interface UserKey {
+        Long getId();
+
+        String getEmail();
+
+        Long getRolId();
+    }
+
+    @Query("select u.id as id, u.email as email, u.rol.id as rolId from User u where u.id in :ids")
+    List<UserKey> findKeysByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Seleccion por filtro recorrida por keyset sobre el id (parametros nulos = sin filtro)
+    @Query("select u.id as id, u.email as email, u.rol.id as rolId from User u where u.id > :afterId "
+            + "and (:rolId is null or u.rol.id = :rolId) "
+            + "and (:emailPattern is null or u.emailNormalized like :emailPattern escape '\\') order by u.id")
+    List<UserKey> findKeysByFilter(@Param("afterId") long afterId, @Param("rolId") Long rolId,
+                                   @Param("emailPattern") String emailPattern, Limit limit);
+
+    // Un solo DELETE por bloque, sin cargar las entidades (deleteAllById hace SELECT + DELETE por fila)
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update User u set u.rol.id = :rolId, u.version = u.version + 1 where u.id in :ids and u.rol.id <> :rolId")
+    int updateRolByIdIn(@Param("ids") Collection<Long> ids, @Param("rolId") Long rolId);
 }
@@ -0,0 +1,162 @@
+package org.ghosty.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.ghosty.exception.ErrorResponseWriter;
+import org.ghosty.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de peticiones a login/registro (cada una cuesta un BCrypt completo) con token buckets por IP
+ * del cliente y por email objetivo. Los buckets viven en caches Caffeine acotadas en tamano y que
+ * expulsan los inactivos; cada bucket se sincroniza por separado, asi que solo compiten las peticiones
+ * de la misma clave. El rechazo es un 429 con el cuerpo ya serializado, sin lanzar excepciones.
+ */
+@Component
+public class AuthRateLimiter {
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${auth.rate-limit.ip.refill-per-minute:20}")
+    private int ipRefillPerMinute;
+
+    @Value("${auth.rate-limit.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${auth.rate-limit.email.refill-per-minute:5}")
+    private int emailRefillPerMinute;
+
+    @Value("${auth.rate-limit.max-buckets:100000}")
+    private long maxBuckets;
+
+    @Value("${auth.rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    private final MeterRegistry meterRegistry;
+    private final ErrorResponseWriter errorResponseWriter;
+    private final ErrorResponseWriter.Template rejection;
+
+    private Cache<String, TokenBucket> ipBuckets;
+    private Cache<String, TokenBucket> emailBuckets;
+    private Counter ipRejections;
+    private Counter emailRejections;
+
+    public AuthRateLimiter(MeterRegistry meterRegistry, ErrorResponseWriter errorResponseWriter) {
+        this.meterRegistry = meterRegistry;
+        this.errorResponseWriter = errorResponseWriter;
+        this.rejection = errorResponseWriter.fixed(HttpStatus.TOO_MANY_REQUESTS, "Demasiados intentos, vuelve a intentarlo mas tarde");
+    }
+
+    @PostConstruct
+    void init() {
+        ipBuckets = newBucketCache();
+        emailBuckets = newBucketCache();
+        ipRejections = rejectionCounter("ip");
+        emailRejections = rejectionCounter("email");
+        Gauge.builder("auth.rate.limit.buckets", ipBuckets, Cache::estimatedSize).tag("limit", "ip").register(meterRegistry);
+        Gauge.builder("auth.rate.limit.buckets", emailBuckets, Cache::estimatedSize).tag("limit", "email").register(meterRegistry);
+    }
+
+    /**
+     * Consume un token del bucket de la IP y otro del del email.
+     *
+     * @return 0 si la peticion se admite; si no, los segundos que faltan para poder reintentar
+     */
+    public long acquire(String clientIp, String email) {
+        return acquire(clientIp, email, System.nanoTime());
+    }
+
+    long acquire(String clientIp, String email, long nowNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        long retryAfter = ipBuckets.get(clientIp, key -> new TokenBucket(ipCapacity, ipRefillPerMinute, nowNanos))
+                .tryConsume(nowNanos);
+        if (retryAfter > 0) {
+            ipRejections.increment();
+            return retryAfter;
+        }
+        if (email != null) {
+            retryAfter = emailBuckets.get(User.normalizeEmail(email), key -> new TokenBucket(emailCapacity, emailRefillPerMinute, nowNanos))
+                    .tryConsume(nowNanos);
+            if (retryAfter > 0) {
+                emailRejections.increment();
+            }
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Respuesta 429 con el mismo cuerpo que {@code ErrorResponseDTO}, desde la plantilla ya serializada:
+     * solo timestamp y path se escriben por peticion.
+     */
+    public ResponseEntity<byte[]> tooManyRequests(String path, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponseWriter.render(rejection, path));
+    }
+
+    private Cache<String, TokenBucket> newBucketCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    private Counter rejectionCounter(String limit) {
+        return Counter.builder("auth.rate.limit.rejected")
+                .description("Peticiones de login/registro rechazadas con 429")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Token bucket: {@code capacity} intentos seguidos y {@code refillPerMinute} mas por minuto.
+     */
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(int capacity, int refillPerMinute, long nowNanos) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        /**
+         * @return 0 si habia token; si no, segundos hasta el siguiente
+         */
+        synchronized long tryConsume(long nowNanos) {
+            if (nowNanos > lastRefillNanos) {
+                tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+                lastRefillNanos = nowNanos;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+}
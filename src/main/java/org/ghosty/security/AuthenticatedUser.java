@@ -0,0 +1,36 @@
+package org.ghosty.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal de Spring Security que ademas lleva el id y el nombre visible del usuario,
+ * para poder construir la respuesta de login sin volver a cargar la entidad.
+ * El {@code username} de Spring Security sigue siendo el email.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+    private final String displayName;
+
+    public AuthenticatedUser(Long id, String displayName, String email, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, true, true, true, true, authorities);
+        this.id = id;
+        this.displayName = displayName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    AuthenticatedUser copy() {
+        return new AuthenticatedUser(id, displayName, getUsername(), getPassword(), getAuthorities());
+    }
+}
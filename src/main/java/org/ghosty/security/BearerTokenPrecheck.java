@@ -0,0 +1,112 @@
+package org.ghosty.security;
+
+import java.util.Arrays;
+
+/**
+ * Comprobacion barata de un token Bearer antes de verificarlo con JJWT: tres segmentos, alfabeto
+ * Base64url, longitudes de un HS256 de {@link JwtCodec} y {@code exp} leido del payload sin parsear el JSON.
+ * No lanza excepciones ni reserva mas que el payload decodificado: la basura y los tokens caducados
+ * (trafico de bots) se descartan sin construir excepciones de JJWT con su stack trace.
+ * Un {@link Result#PLAUSIBLE} no garantiza nada: la firma y el resto los verifica JJWT.
+ */
+final class BearerTokenPrecheck {
+
+    enum Result {
+        PLAUSIBLE,
+        MALFORMED,
+        EXPIRED
+    }
+
+    // Nuestros tokens rondan los 400 caracteres; nada legitimo se acerca a este limite
+    static final int MAX_LENGTH = 4096;
+    // Firma HMAC-SHA256: 32 bytes en Base64url sin relleno. Solo emitimos HS256, asi que otra longitud
+    // (HS384/HS512 con la misma clave, que JJWT aceptaria) se descarta
+    private static final int SIGNATURE_LENGTH = 43;
+    private static final byte[] EXP_KEY = {'"', 'e', 'x', 'p', '"', ':'};
+    private static final int MAX_EXP_DIGITS = 15;
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private BearerTokenPrecheck() {
+    }
+
+    static Result check(String token, long nowMillis) {
+        int length = token.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return Result.MALFORMED;
+        }
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return Result.MALFORMED;
+                }
+            } else if (c >= 128 || DECODE[c] < 0) {
+                return Result.MALFORMED;
+            }
+        }
+        int payloadLength = secondDot - firstDot - 1;
+        if (firstDot <= 0 || secondDot < 0 || payloadLength <= 0 || payloadLength % 4 == 1
+                || length - secondDot - 1 != SIGNATURE_LENGTH) {
+            return Result.MALFORMED;
+        }
+
+        long expSeconds = readExp(decode(token, firstDot + 1, secondDot));
+        // Sin exp legible decide JJWT; con exp, el mismo criterio que JJWT sin margen de reloj
+        return expSeconds >= 0 && nowMillis > expSeconds * 1000 ? Result.EXPIRED : Result.PLAUSIBLE;
+    }
+
+    // Base64url sin relleno; los caracteres ya estan validados
+    private static byte[] decode(String token, int from, int to) {
+        int length = to - from;
+        byte[] out = new byte[length * 3 / 4];
+        int bits = 0;
+        int buffered = 0;
+        int written = 0;
+        for (int i = from; i < to; i++) {
+            bits = (bits << 6) | DECODE[token.charAt(i)];
+            buffered += 6;
+            if (buffered >= 8) {
+                buffered -= 8;
+                out[written++] = (byte) (bits >> buffered);
+            }
+        }
+        return out;
+    }
+
+    // Segundos de "exp":<numero> en el JSON compacto que genera JJWT, o -1 si no aparece
+    private static long readExp(byte[] json) {
+        outer:
+        for (int i = 0; i <= json.length - EXP_KEY.length; i++) {
+            for (int k = 0; k < EXP_KEY.length; k++) {
+                if (json[i + k] != EXP_KEY[k]) {
+                    continue outer;
+                }
+            }
+            long value = 0;
+            int digits = 0;
+            for (int j = i + EXP_KEY.length; j < json.length && json[j] >= '0' && json[j] <= '9'; j++) {
+                if (++digits > MAX_EXP_DIGITS) {
+                    return -1;
+                }
+                value = value * 10 + (json[j] - '0');
+            }
+            return digits == 0 ? -1 : value;
+        }
+        return -1;
+    }
+}
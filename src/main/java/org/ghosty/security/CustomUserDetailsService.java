@@ -1,39 +1,88 @@
 package org.ghosty.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.ghosty.config.CacheConfig;
 import org.ghosty.model.User;
 import org.ghosty.repository.UserRepository;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache userDetailsCache;
+    private final RoleRegistry roleRegistry;
+    private final Timer cachedLoadTimer;
+    private final Timer databaseLoadTimer;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, CacheManager cacheManager, RoleRegistry roleRegistry,
+                                    MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.userDetailsCache = cacheManager.getCache(CacheConfig.USER_DETAILS_CACHE);
+        this.roleRegistry = roleRegistry;
+        this.cachedLoadTimer = loadTimer(meterRegistry, "hit");
+        this.databaseLoadTimer = loadTimer(meterRegistry, "miss");
     }
 
+    /**
+     * Devuelve siempre una copia: Spring Security borra la contraseña del principal tras autenticar
+     * ({@code eraseCredentials}) y eso no debe afectar a la entrada cacheada.
+     * La clave de la cache es el email normalizado, igual que la busqueda en BD (sin distinguir mayusculas).
+     */
     @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email).orElseThrow(
-                () -> new UsernameNotFoundException("User not found with email: " + email)
-        );
-
-        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
-        grantedAuthorities.add( new SimpleGrantedAuthority(user.getRol().getRol().name()));
+    public AuthenticatedUser loadUserByUsername(String email) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+        String key = User.normalizeEmail(email);
+        AuthenticatedUser cached = userDetailsCache.get(key, AuthenticatedUser.class);
+        if (cached != null) {
+            cachedLoadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached.copy();
+        }
+        try {
+            cached = toUserDetails(userRepository.findByEmail(email).orElseThrow(
+                    () -> new UsernameNotFoundException("User not found with email: " + email)
+            ));
+        } finally {
+            databaseLoadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        userDetailsCache.put(key, cached);
+        return cached.copy();
+    }
 
-        return new org.springframework.security.core.userdetails.User(
+    /**
+     * Construye el principal a partir de una entidad ya cargada, sin consultar la base de datos.
+     */
+    public AuthenticatedUser toUserDetails(User user) {
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
-                true, true, true, true,
-                grantedAuthorities
-        );    }
+                roleRegistry.authorities(user.getRol())
+        );
+    }
+
+    /**
+     * Invalida el usuario cacheado; llamar siempre que cambie su email, rol, contraseña o se borre.
+     */
+    public void evict(String email) {
+        if (email != null) {
+            userDetailsCache.evict(User.normalizeEmail(email));
+        }
+    }
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder("user.details.load.duration")
+                .description("Carga del usuario autenticado (cache de UserDetails o BD)")
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
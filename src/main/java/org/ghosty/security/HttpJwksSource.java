@@ -0,0 +1,31 @@
+package org.ghosty.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Descarga el JWKS por HTTP y respeta el {@code Cache-Control: max-age} de la respuesta.
+ */
+public class HttpJwksSource implements JwksSource {
+
+    private final RestTemplate restTemplate;
+    private final String uri;
+
+    public HttpJwksSource(RestTemplate restTemplate, String uri) {
+        this.restTemplate = restTemplate;
+        this.uri = uri;
+    }
+
+    @Override
+    public JwksDocument fetch() {
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(uri, byte[].class);
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IllegalStateException("No se pudo descargar el JWKS de " + uri + ": " + response.getStatusCode());
+        }
+        return JwksDocument.parse(
+                response.getBody(),
+                JwksDocument.maxAgeOf(response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL))
+        );
+    }
+}
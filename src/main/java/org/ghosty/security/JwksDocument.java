@@ -0,0 +1,63 @@
+package org.ghosty.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Claves RSA de un JWKS indexadas por {@code kid}, junto con el tiempo que se pueden cachear.
+ */
+public record JwksDocument(Map<String, PublicKey> keys, Duration maxAge) {
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    public JwksDocument {
+        keys = Map.copyOf(keys);
+    }
+
+    public static JwksDocument parse(byte[] json, Duration maxAge) {
+        try {
+            Map<String, PublicKey> keys = new HashMap<>();
+            KeyFactory rsa = KeyFactory.getInstance("RSA");
+            for (JsonNode jwk : MAPPER.readTree(json).path("keys")) {
+                if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")) {
+                    continue;
+                }
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("n").asText()));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("e").asText()));
+                keys.put(jwk.get("kid").asText(), rsa.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+            return new JwksDocument(keys, maxAge);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("JWKS invalido: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extrae el {@code max-age} de una cabecera Cache-Control; si no hay, usa {@link #DEFAULT_MAX_AGE}.
+     */
+    public static Duration maxAgeOf(String cacheControl) {
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                return Duration.ofSeconds(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return DEFAULT_MAX_AGE;
+    }
+}
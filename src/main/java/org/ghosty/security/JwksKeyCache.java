@@ -0,0 +1,129 @@
+package org.ghosty.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache de claves publicas de un {@link JwksSource}.
+ * <ul>
+ *     <li>La primera carga es perezosa (el arranque no depende de la red).</li>
+ *     <li>Se refresca en segundo plano antes de que venza el {@code max-age}.</li>
+ *     <li>Un {@code kid} desconocido provoca una unica descarga, como mucho cada {@code minRefetchInterval}.</li>
+ *     <li>Si una descarga falla se siguen usando las claves anteriores.</li>
+ * </ul>
+ */
+public class JwksKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+
+    private static final Duration MIN_BACKGROUND_DELAY = Duration.ofMinutes(1);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final JwksSource source;
+    private final long minRefetchIntervalMillis;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long expiresAtMillis;
+    private volatile long lastFetchMillis;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    public JwksKeyCache(JwksSource source, Duration minRefetchInterval) {
+        this.source = source;
+        this.minRefetchIntervalMillis = minRefetchInterval.toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Clave publica para el {@code kid}, o {@code null} si tampoco aparece tras volver a descargar el JWKS.
+     */
+    public PublicKey getKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= expiresAtMillis) {
+            refresh(false);
+        }
+        PublicKey key = keys.get(kid);
+        if (key == null && refresh(true)) {
+            key = keys.get(kid);
+        }
+        return key;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private boolean refresh(boolean unknownKid) {
+        refreshLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (unknownKid && now - lastFetchMillis < minRefetchIntervalMillis) {
+                return false;
+            }
+            if (!unknownKid && now < expiresAtMillis) {
+                // Otro hilo ya refresco mientras esperabamos el lock
+                return true;
+            }
+            return fetch(now);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void backgroundRefresh() {
+        refreshLock.lock();
+        try {
+            fetch(System.currentTimeMillis());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean fetch(long now) {
+        lastFetchMillis = now;
+        try {
+            JwksDocument document = source.fetch();
+            keys = document.keys();
+            expiresAtMillis = now + document.maxAge().toMillis();
+            long delay = Math.max(document.maxAge().toMillis() * 9 / 10, MIN_BACKGROUND_DELAY.toMillis());
+            schedule(delay);
+            return true;
+        } catch (RuntimeException e) {
+            if (keys.isEmpty()) {
+                throw e;
+            }
+            log.warn("No se pudo refrescar el JWKS, se mantienen las claves anteriores: {}", e.getMessage());
+            // Evita que cada peticion reintente la descarga mientras el origen esta caido
+            expiresAtMillis = now + RETRY_DELAY.toMillis();
+            schedule(RETRY_DELAY.toMillis());
+            return false;
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduledRefresh = scheduler.schedule(this::backgroundRefresh, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.ghosty.security;
+
+/**
+ * Origen de las claves publicas (JWKS) con las que se verifican tokens externos.
+ * Hay una implementacion HTTP para Google y otra basada en {@code Resource} para tests o entornos sin red.
+ */
+public interface JwksSource {
+
+    JwksDocument fetch();
+}
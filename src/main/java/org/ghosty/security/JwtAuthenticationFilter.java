@@ -1,9 +1,13 @@
 package org.ghosty.security;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,10 +24,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationList tokenRevocationList;
+    private final Counter noHeader;
+    private final Counter invalid;
+    private final Counter expired;
+    private final Counter revoked;
+    private final Counter authenticated;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    // Si esta activo, el principal se construye desde los claims del token sin consultar la BD
+    @Value("${jwt.stateless-auth.enabled:false}")
+    private boolean statelessAuth;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsService userDetailsService,
+                                   TokenRevocationList tokenRevocationList,
+                                   MeterRegistry meterRegistry) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.noHeader = outcomeCounter(meterRegistry, "no_header");
+        this.invalid = outcomeCounter(meterRegistry, "invalid");
+        this.expired = outcomeCounter(meterRegistry, "expired");
+        this.revoked = outcomeCounter(meterRegistry, "revoked");
+        this.authenticated = outcomeCounter(meterRegistry, "authenticated");
     }
 
     @Override
@@ -35,38 +58,74 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            noHeader.increment();
             filterChain.doFilter(request, response);
             return;
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                // ojo con esto que es con el email y no con el username
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Basura y tokens caducados se descartan sin pasar por JJWT (sin excepciones ni logs por peticion)
+            switch (BearerTokenPrecheck.check(jwt, System.currentTimeMillis())) {
+                case MALFORMED -> invalid.increment();
+                case EXPIRED -> expired.increment();
+                case PLAUSIBLE -> {
+                    try {
+                        authenticate(jwt, request);
+                    } catch (ExpiredJwtException e) {
+                        expired.increment();
+                    } catch (Exception e) {
+                        // Si el usuario no existe o hay algún error, simplemente no autenticamos
+                        // Esto permite que las rutas públicas sigan funcionando incluso con tokens inválidos
+                        invalid.increment();
+                        logger.warn("Failed to authenticate user from token: " + e.getMessage());
+                    }
                 }
-            } catch (Exception e) {
-                // Si el usuario no existe o hay algún error, simplemente no autenticamos
-                // Esto permite que las rutas públicas sigan funcionando incluso con tokens inválidos
-                logger.warn("Failed to authenticate user from token: " + e.getMessage());
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(String jwt, HttpServletRequest request) {
+        final String userEmail = jwtService.extractUsername(jwt);
+        if (userEmail == null) {
+            invalid.increment();
+            return;
+        }
+        // Tokens revocados (logout, filtrados): filtro de Bloom en memoria, sin consultar la BD
+        if (tokenRevocationList.isRevoked(jwtService.extractTokenId(jwt))) {
+            revoked.increment();
+            return;
+        }
+
+        UserDetails userDetails = statelessAuth
+                ? jwtService.extractUserDetails(jwt).orElse(null)
+                // ojo con esto que es con el email y no con el username
+                : this.userDetailsService.loadUserByUsername(userEmail);
+
+        if (userDetails != null && jwtService.isTokenValid(jwt, userDetails)) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities()
+            );
+            authToken.setDetails(
+                    new WebAuthenticationDetailsSource().buildDetails(request)
+            );
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            authenticated.increment();
+        } else {
+            invalid.increment();
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("jwt.filter.requests")
+                .description("Resultado de la autenticacion por JWT de cada peticion")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
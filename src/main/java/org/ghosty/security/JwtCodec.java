@@ -0,0 +1,47 @@
+package org.ghosty.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Firma y verifica JWT HS256 con la clave decodificada una sola vez.
+ * El {@link JwtParser} de JJWT es inmutable y seguro entre hilos, por eso se comparte;
+ * el {@code JwtBuilder} es mutable y se crea por token, pero reutiliza la misma clave.
+ */
+final class JwtCodec {
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS256;
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    JwtCodec(String base64Secret) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    String sign(Map<String, Object> claims, String id, String subject, long issuedAtMillis, long expiresAtMillis) {
+        return Jwts.builder()
+                .setClaims(claims)
+                .setId(id)
+                .setSubject(subject)
+                .setIssuedAt(new Date(issuedAtMillis))
+                .setExpiration(new Date(expiresAtMillis))
+                .signWith(signingKey, ALGORITHM)
+                .compact();
+    }
+
+    Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+}
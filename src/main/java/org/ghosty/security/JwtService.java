@@ -1,32 +1,64 @@
 package org.ghosty.security;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class JwtService {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String EPOCH_CLAIM = "epoch";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final RoleRegistry roleRegistry;
+    private JwtCodec codec;
+    private VerifiedClaimsCache claimsCache;
+    private Timer verifyTimer;
+
+    public JwtService(MeterRegistry meterRegistry, SecurityEpochRegistry securityEpochRegistry, RoleRegistry roleRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.securityEpochRegistry = securityEpochRegistry;
+        this.roleRegistry = roleRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        codec = new JwtCodec(jwtSecret);
+        claimsCache = new VerifiedClaimsCache(claimsCacheMaxSize);
+
+        // cache.gets{cache=jwt-claims,result=hit|miss}, cache.evictions, cache.size... desde las estadisticas de Caffeine
+        claimsCache.bindTo(meterRegistry);
+        verifyTimer = Timer.builder("jwt.verify.duration")
+                .description("Verificacion de firma y parseo de tokens que no estaban en el cache")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     public String generateToken(UserDetails userDetails) {
         // Extraer los roles del UserDetails
@@ -36,7 +68,8 @@ public class JwtService {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
         
-        extraClaims.put("roles", roles);
+        extraClaims.put(ROLES_CLAIM, roles);
+        extraClaims.put(EPOCH_CLAIM, securityEpochRegistry.currentEpoch(userDetails.getUsername()));
         
         return generateToken(extraClaims, userDetails);
     }
@@ -45,6 +78,13 @@ public class JwtService {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * Identificador del token ({@code jti}), la clave de revocacion. Null en tokens emitidos sin el.
+     */
+    public String extractTokenId(String token) {
+        return extractClaim(token, Claims::getId);
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
@@ -59,40 +99,51 @@ public class JwtService {
 
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return Jwts
-                .builder()
-                .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        long now = System.currentTimeMillis();
+        // jti aleatorio: permite revocar este token concreto (logout) sin invalidar los demas del usuario
+        return codec.sign(extraClaims, UUID.randomUUID().toString(), userDetails.getUsername(), now, now + expiration);
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername())) && !claims.getExpiration().before(new Date());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Construye el principal directamente desde los claims verificados (subject + roles), sin consultar
+     * la base de datos. Vacio si el token es de una epoca de seguridad anterior a la del usuario.
+     */
+    public Optional<UserDetails> extractUserDetails(String token) {
+        final Claims claims = extractAllClaims(token);
+        final String email = claims.getSubject();
+
+        Number epoch = claims.get(EPOCH_CLAIM, Number.class);
+        long tokenEpoch = epoch != null ? epoch.longValue() : SecurityEpochRegistry.INITIAL_EPOCH;
+        if (email == null || !securityEpochRegistry.isCurrent(email, tokenEpoch)) {
+            return Optional.empty();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get(ROLES_CLAIM, List.class);
+        return Optional.of(new User(
+                email,
+                "",
+                roleRegistry.authorities(roles != null ? roles : List.of())
+        ));
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public long getClaimsCacheHits() {
+        return claimsCache.hitCount();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public long getClaimsCacheMisses() {
+        return claimsCache.missCount();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Los claims se comparten entre peticiones desde el cache: tratarlos como solo lectura.
+     */
+    private Claims extractAllClaims(String token) {
+        return claimsCache.get(token, t -> verifyTimer.record(() -> codec.parse(t)));
     }
 }
@@ -0,0 +1,152 @@
+package org.ghosty.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.ghosty.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pool dedicado al trabajo de CPU de BCrypt (hash y verificacion de contraseñas).
+ * Tamaño = nucleos y cola acotada: si se llena se rechaza al momento con 503 en vez de
+ * dejar todos los hilos de Tomcat ocupados calculando hashes.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final int batchParallelism;
+
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads:0}") int threads,
+                                   @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password-hashing.batch-parallelism:0}") int batchParallelism,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchParallelism = batchParallelism > 0 ? Math.min(batchParallelism, poolSize) : poolSize;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new WorkerThread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Tareas de hashing rechazadas por cola llena")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la tarea en el pool y espera el resultado. Lanza {@link ServiceUnavailableException}
+     * inmediatamente si el pool esta saturado. Si el hilo actual ya es del pool (p. ej. un elemento de
+     * {@link #mapAll}) se ejecuta en linea para no bloquearse a si mismo.
+     */
+    public <T> T call(Supplier<T> task) {
+        if (Thread.currentThread() instanceof WorkerThread) {
+            return task.get();
+        }
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            throw saturated();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException("Operación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Aplica {@code task} a todos los elementos en paralelo y devuelve los resultados en el mismo orden.
+     * Nunca hay mas de {@code batch-parallelism} tareas del lote en el pool a la vez: cada elemento es una
+     * tarea, asi que los logins que llegan mientras tanto esperan como mucho un hash, no el lote entero.
+     */
+    public <T, R> List<R> mapAll(List<T> items, Function<T, R> task) {
+        Semaphore slots = new Semaphore(batchParallelism);
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try {
+            for (T item : items) {
+                slots.acquire();
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return task.apply(item);
+                        } finally {
+                            slots.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    futures.forEach(future -> future.cancel(true));
+                    throw saturated();
+                }
+            }
+            List<R> results = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new ServiceUnavailableException("Operación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private ServiceUnavailableException saturated() {
+        rejected.increment();
+        return new ServiceUnavailableException("Servidor ocupado procesando autenticaciones. Inténtalo de nuevo en unos segundos");
+    }
+
+    private static final class WorkerThread extends Thread {
+        WorkerThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.ghosty.security;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lee el JWKS de un fichero o del classpath (tests, entornos aislados).
+ */
+public class ResourceJwksSource implements JwksSource {
+
+    private final Resource resource;
+
+    public ResourceJwksSource(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public JwksDocument fetch() {
+        try (InputStream in = resource.getInputStream()) {
+            return JwksDocument.parse(in.readAllBytes(), JwksDocument.DEFAULT_MAX_AGE);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el JWKS de " + resource.getDescription(), e);
+        }
+    }
+}
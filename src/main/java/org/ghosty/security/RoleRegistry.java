@@ -0,0 +1,133 @@
+package org.ghosty.security;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.ghosty.enums.Erol;
+import org.ghosty.exception.ResourceNotFoundException;
+import org.ghosty.model.Rol;
+import org.ghosty.repository.RoleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro en memoria de los roles (filas estaticas de {@code roles}), indexado por {@link Erol}.
+ * Se carga una vez al arrancar y solo se recarga con {@link #refresh()} (endpoint de administracion).
+ * Resolver un rol no cuesta consultas ni reservas de memoria: las referencias son proxies de
+ * {@link EntityManager#getReference} y las listas de authorities son inmutables y compartidas.
+ */
+@Component
+public class RoleRegistry {
+
+    private static final Map<Erol, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Erol.class);
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES_BY_NAME = new HashMap<>();
+
+    static {
+        for (Erol erol : Erol.values()) {
+            List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(erol.name()));
+            AUTHORITIES.put(erol, authorities);
+            AUTHORITIES_BY_NAME.put(erol.name(), authorities);
+        }
+    }
+
+    private record Snapshot(Map<Erol, Long> idsByRol, Map<Long, Erol> rolesById) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Snapshot snapshot;
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * Vuelve a leer la tabla {@code roles}. Devuelve el numero de roles cargados.
+     */
+    public int refresh() {
+        refreshLock.lock();
+        try {
+            Map<Erol, Long> idsByRol = new EnumMap<>(Erol.class);
+            Map<Long, Erol> rolesById = new HashMap<>();
+            for (Rol rol : roleRepository.findAll()) {
+                idsByRol.put(rol.getRol(), rol.getId());
+                rolesById.put(rol.getId(), rol.getRol());
+            }
+            snapshot = new Snapshot(idsByRol, Map.copyOf(rolesById));
+            return idsByRol.size();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Proxy del rol para asignarlo como clave ajena sin consultar la tabla {@code roles}.
+     * No acceder a sus campos (salvo el id): eso inicializaria el proxy con un SELECT.
+     */
+    public Rol reference(Erol erol) {
+        Long id = snapshot().idsByRol().get(erol);
+        if (id == null) {
+            throw new ResourceNotFoundException("Rol " + erol + " no encontrado en la base de datos");
+        }
+        return entityManager.getReference(Rol.class, id);
+    }
+
+    /**
+     * Rol de una entidad (o proxy) usando solo su id.
+     */
+    public Erol roleOf(Rol rol) {
+        Erol erol = snapshot().rolesById().get(rol.getId());
+        return erol != null ? erol : rol.getRol();
+    }
+
+    public List<GrantedAuthority> authorities(Erol erol) {
+        return AUTHORITIES.get(erol);
+    }
+
+    public List<GrantedAuthority> authorities(Rol rol) {
+        return authorities(roleOf(rol));
+    }
+
+    /**
+     * Authorities a partir de los nombres de rol de un token; con un unico rol conocido
+     * se devuelve la lista compartida.
+     */
+    public List<GrantedAuthority> authorities(Collection<String> roleNames) {
+        if (roleNames.size() == 1) {
+            List<GrantedAuthority> shared = AUTHORITIES_BY_NAME.get(roleNames.iterator().next());
+            if (shared != null) {
+                return shared;
+            }
+        }
+        return roleNames.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+}
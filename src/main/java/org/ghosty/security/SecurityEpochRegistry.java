@@ -0,0 +1,201 @@
+package org.ghosty.security;
+
+import jakarta.annotation.PreDestroy;
+import org.ghosty.model.SecurityEpoch;
+import org.ghosty.repository.SecurityEpochRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Epocas de seguridad" por usuario (clave: email, que es el subject del JWT). Cada cambio sensible
+ * (rol, email, borrado) sube la epoca del usuario y los tokens emitidos con una epoca anterior dejan de
+ * ser validos en modo stateless.
+ * <ul>
+ *     <li>La epoca nueva se guarda en la tabla {@code security_epochs} dentro de la transaccion del cambio
+ *     ({@link #record}) y se aplica en memoria tras el commit ({@link #apply}).</li>
+ *     <li>Al arrancar carga las epocas de los ultimos {@code jwt.expiration} y cada {@code poll-interval}
+ *     lee las subidas en otros nodos (releyendo {@code poll-overlap} hacia atras por desfase de relojes),
+ *     como {@link TokenRevocationList}.</li>
+ *     <li>Pasado {@code jwt.expiration} desde el cambio todos los tokens anteriores ya han caducado y la
+ *     entrada se descarta, en memoria y en la BD.</li>
+ * </ul>
+ * Comprobar un token no consulta la base de datos.
+ */
+@Component
+public class SecurityEpochRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEpochRegistry.class);
+
+    /** Epoca de los usuarios que nunca se han modificado (o cuya entrada ya se purgo). */
+    public static final long INITIAL_EPOCH = 0L;
+
+    private static final int PURGE_THRESHOLD = 1024;
+
+    @Value("${jwt.expiration}")
+    private long expiration;
+
+    @Value("${jwt.security-epoch.poll-interval:5s}")
+    private Duration pollInterval;
+
+    @Value("${jwt.security-epoch.poll-overlap:60s}")
+    private Duration pollOverlap;
+
+    @Value("${jwt.security-epoch.purge-interval:1h}")
+    private Duration purgeInterval;
+
+    private final SecurityEpochRepository securityEpochRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<String, Long> epochs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Long lastPoll;
+    private volatile String upsertSql;
+
+    public SecurityEpochRegistry(SecurityEpochRepository securityEpochRepository, JdbcTemplate jdbcTemplate) {
+        this.securityEpochRepository = securityEpochRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "security-epoch-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        poll();
+        scheduler.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purgeDatabaseSafely, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public long currentEpoch(String email) {
+        Long epoch = epochs.get(email);
+        return epoch != null ? epoch : INITIAL_EPOCH;
+    }
+
+    public boolean isCurrent(String email, long tokenEpoch) {
+        return tokenEpoch >= currentEpoch(email);
+    }
+
+    /**
+     * Calcula y guarda en la BD la epoca nueva de estos usuarios, en la transaccion del llamador (si se
+     * deshace, no se invalida nada). La epoca es un timestamp en milisegundos, siempre creciente para el
+     * mismo usuario. No cambia la tabla en memoria: el llamador aplica el resultado con {@link #apply} tras el commit.
+     */
+    public Map<String, Long> record(Collection<String> emails) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> bumped = new LinkedHashMap<>();
+        if (emails.isEmpty()) {
+            return bumped;
+        }
+        for (String email : emails) {
+            bumped.merge(email, Math.max(now, currentEpoch(email) + 1), Math::max);
+        }
+        // Upsert en batch (una sentencia por bloque de una operacion masiva). Sin DELETE + INSERT: dos cambios
+        // concurrentes del mismo usuario chocarian en la clave primaria al insertar los dos
+        List<Object[]> rows = new ArrayList<>(bumped.size());
+        bumped.forEach((email, epoch) -> rows.add(new Object[]{email, epoch}));
+        jdbcTemplate.batchUpdate(upsertSql(), rows);
+        return bumped;
+    }
+
+    /**
+     * Aplica en este nodo epocas ya guardadas: invalida los tokens emitidos hasta ahora para esos usuarios.
+     */
+    public void apply(Map<String, Long> bumped) {
+        bumped.forEach((email, epoch) -> epochs.merge(email, epoch, Math::max));
+        if (epochs.size() > PURGE_THRESHOLD) {
+            purgeExpired(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Lee de la BD las epocas subidas desde el sondeo anterior (las de los ultimos {@code jwt.expiration}
+     * en la primera llamada) y descarta las caducadas.
+     */
+    public void poll() {
+        long startedAt = System.currentTimeMillis();
+        Long previous = lastPoll;
+        long since = previous == null ? startedAt - expiration : previous - pollOverlap.toMillis();
+        List<SecurityEpoch> changed = securityEpochRepository.findByEpochGreaterThan(since);
+        for (SecurityEpoch epoch : changed) {
+            epochs.merge(epoch.getEmail(), epoch.getEpoch(), Math::max);
+        }
+        lastPoll = startedAt;
+        purgeExpired(startedAt);
+    }
+
+    /**
+     * Inserta la epoca o, si el usuario ya tiene fila, se queda con la mayor. Sintaxis de cada base de datos
+     * (H2 en los tests, en modo MySQL); la fila en conflicto se bloquea y no hay carrera entre nodos.
+     */
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            DatabaseDriver driver;
+            try {
+                driver = DatabaseDriver.fromProductName(JdbcUtils.extractDatabaseMetaData(
+                        jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("No se pudo identificar la base de datos", e);
+            }
+            sql = switch (driver) {
+                case POSTGRESQL -> "insert into security_epochs (email, epoch) values (?, ?) "
+                        + "on conflict (email) do update set epoch = greatest(security_epochs.epoch, excluded.epoch)";
+                case MYSQL, MARIADB, H2 -> "insert into security_epochs (email, epoch) values (?, ?) "
+                        + "on duplicate key update epoch = greatest(epoch, values(epoch))";
+                default -> throw new IllegalStateException("Base de datos no soportada para security_epochs: " + driver);
+            };
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    private void purgeExpired(long now) {
+        epochs.entrySet().removeIf(entry -> entry.getValue() + expiration < now);
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron leer las epocas de seguridad: {}", e.getMessage());
+        }
+    }
+
+    private void purgeDatabaseSafely() {
+        try {
+            int deleted = securityEpochRepository.deleteOlderThan(System.currentTimeMillis() - expiration);
+            if (deleted > 0) {
+                log.debug("Eliminadas {} epocas de seguridad ya caducadas", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron purgar las epocas de seguridad caducadas: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.ghosty.security;
+
+import jakarta.annotation.PreDestroy;
+import org.ghosty.model.RevokedToken;
+import org.ghosty.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Copia en memoria de los tokens revocados (tabla {@code revoked_tokens}) para comprobar cada peticion
+ * sin consultar la BD: un filtro de Bloom descarta casi todos los tokens con unas pocas lecturas de bits
+ * y solo sus positivos se confirman en el conjunto exacto (jti -> expiracion).
+ * <ul>
+ *     <li>Al arrancar carga las revocaciones de tokens aun vigentes.</li>
+ *     <li>Cada {@code poll-interval} lee las revocaciones nuevas de otros nodos ({@code revoked_at}
+ *     posterior al sondeo anterior menos {@code poll-overlap}, por desfase de relojes).</li>
+ *     <li>Las entradas caducan con el token: se quitan del conjunto y el filtro se reconstruye sin ellas.</li>
+ * </ul>
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${jwt.revocation.poll-interval:5s}")
+    private Duration pollInterval;
+
+    @Value("${jwt.revocation.poll-overlap:60s}")
+    private Duration pollOverlap;
+
+    @Value("${jwt.revocation.purge-interval:1h}")
+    private Duration purgeInterval;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile BloomFilter filter;
+    private volatile Instant lastPoll;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        poll();
+        scheduler.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purgeDatabaseSafely, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * {@code true} si el token con este {@code jti} esta revocado. Sin bloqueos ni consultas.
+     */
+    public boolean isRevoked(String jti) {
+        BloomFilter current = filter;
+        return jti != null && current != null && current.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    /**
+     * Registra una revocacion en este nodo (los demas la leen en su siguiente sondeo).
+     */
+    public void add(String jti, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (filter == null) {
+                filter = new BloomFilter(expectedEntries, falsePositiveRate);
+            }
+            if (revoked.put(jti, expiresAtMillis) == null) {
+                filter.put(jti);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lee las revocaciones nuevas de la BD (todas las vigentes en la primera llamada) y descarta las caducadas.
+     */
+    public void poll() {
+        Instant startedAt = Instant.now();
+        Instant previous = lastPoll;
+        List<RevokedToken> tokens = previous == null
+                ? revokedTokenRepository.findByExpiresAtAfter(startedAt)
+                : revokedTokenRepository.findByRevokedAtAfter(previous.minus(pollOverlap));
+        for (RevokedToken token : tokens) {
+            add(token.getJti(), token.getExpiresAt().toEpochMilli());
+        }
+        lastPoll = startedAt;
+        purgeExpired(startedAt.toEpochMilli());
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Quita las entradas de tokens ya caducados y, si habia alguna, reconstruye el filtro sin ellas
+     * (dimensionado con margen si el numero de revocaciones supera {@code expected-entries}).
+     */
+    void purgeExpired(long now) {
+        if (!revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+            revoked.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron leer los tokens revocados: {}", e.getMessage());
+        }
+    }
+
+    private void purgeDatabaseSafely() {
+        try {
+            int deleted = revokedTokenRepository.deleteExpired(Instant.now());
+            if (deleted > 0) {
+                log.debug("Eliminados {} tokens revocados ya caducados", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron purgar los tokens revocados caducados: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.ghosty.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache acotado de claims ya verificados (firma HMAC + parseo JSON), sobre Caffeine con {@code maximumSize}.
+ * La clave es el SHA-256 del token, asi el tamaño por entrada no depende del largo del JWT.
+ * Las entradas caducan con el {@code exp} del token o se descartan (politica de Caffeine) cuando el cache se llena.
+ * La hora se mide con el {@link Ticker} del cache, anclado al reloj del sistema al crearlo.
+ */
+final class VerifiedClaimsCache {
+
+    static final String CACHE_NAME = "jwt-claims";
+
+    private final Cache<String, Claims> entries;
+    private final int maxSize;
+    private final Ticker ticker;
+    private final long epochMillisAtStart;
+    private final long tickerNanosAtStart;
+
+    VerifiedClaimsCache(int maxSize) {
+        this(maxSize, Ticker.systemTicker());
+    }
+
+    VerifiedClaimsCache(int maxSize, Ticker ticker) {
+        this.maxSize = maxSize;
+        this.ticker = ticker;
+        this.epochMillisAtStart = System.currentTimeMillis();
+        this.tickerNanosAtStart = ticker.read();
+        // Mantenimiento (expulsiones) en el hilo que escribe: el tamaño no depende de que el pool comun lo haga a tiempo
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .expireAfter(new UntilTokenExpiration(this))
+                .executor(Runnable::run)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Devuelve los claims del token, verificandolo con {@code verifier} solo si no estan en cache.
+     * Los errores del verificador (firma, expiracion...) se propagan sin cachear nada; un token caducado
+     * ya no esta en cache y se vuelve a verificar para que el parser lance ExpiredJwtException.
+     */
+    Claims get(String token, Function<String, Claims> verifier) {
+        if (maxSize <= 0) {
+            return verifier.apply(token);
+        }
+
+        String key = digest(token);
+        Claims cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = verifier.apply(token);
+
+        Date expiration = claims.getExpiration();
+        if (expiration != null && expiration.getTime() > epochMillis(ticker.read())) {
+            entries.put(key, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Publica las estadisticas de Caffeine (cache.gets hit/miss, cache.evictions, cache.size...) con {@code cache=jwt-claims}.
+     */
+    void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+    }
+
+    long hitCount() {
+        return entries.stats().hitCount();
+    }
+
+    long missCount() {
+        return entries.stats().missCount();
+    }
+
+    long evictionCount() {
+        return entries.stats().evictionCount();
+    }
+
+    int size() {
+        return (int) entries.estimatedSize();
+    }
+
+    void clear() {
+        entries.invalidateAll();
+    }
+
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    // Hora de reloj (ms) correspondiente a una lectura del ticker
+    private long epochMillis(long tickerNanos) {
+        return epochMillisAtStart + TimeUnit.NANOSECONDS.toMillis(tickerNanos - tickerNanosAtStart);
+    }
+
+    static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Cada entrada vive hasta el {@code exp} de su token; leerla no la alarga.
+     */
+    private record UntilTokenExpiration(VerifiedClaimsCache cache) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - cache.epochMillis(currentTime);
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package org.ghosty.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.ghosty.exception.ConflictException;
-import org.ghosty.exception.ResourceNotFoundException;
+import org.ghosty.security.AuthenticatedUser;
 import org.ghosty.security.CustomUserDetailsService;
 import org.ghosty.security.JwtService;
+import org.ghosty.security.RoleRegistry;
 import org.ghosty.model.Rol;
 import org.ghosty.model.User;
 import org.ghosty.dto.response.AuthResponseDTO;
@@ -11,19 +14,20 @@ import org.ghosty.dto.request.LoginRequestDTO;
 import org.ghosty.dto.request.RegisterRequestDTO;
 import org.ghosty.dto.request.GoogleLoginRequestDTO;
 import org.ghosty.enums.Erol;
-import org.ghosty.repository.RoleRepository;
 import org.ghosty.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 
@@ -32,32 +36,37 @@ public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
     private final CustomUserDetailsService customUserDetailsService;
-    private final RoleRepository rolRepository;
+    private final RoleRegistry roleRegistry;
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final GoogleAuthService googleAuthService;
+    private final MeterRegistry meterRegistry;
 
-    public AuthenticationService(AuthenticationManager authenticationManager, PasswordEncoder passwordEncoder, CustomUserDetailsService customUserDetailsService, RoleRepository rolRepository, UserRepository userRepository, JwtService jwtService, GoogleAuthService googleAuthService) {
+    public AuthenticationService(AuthenticationManager authenticationManager, PasswordEncoder passwordEncoder, CustomUserDetailsService customUserDetailsService, RoleRegistry roleRegistry, UserRepository userRepository, JwtService jwtService, GoogleAuthService googleAuthService, MeterRegistry meterRegistry) {
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = passwordEncoder;
         this.customUserDetailsService = customUserDetailsService;
-        this.rolRepository = rolRepository;
+        this.roleRegistry = roleRegistry;
         this.userRepository = userRepository;
         this.jwtService = jwtService;
         this.googleAuthService = googleAuthService;
+        this.meterRegistry = meterRegistry;
     }
 
 
 
     @Transactional
     public AuthResponseDTO register(RegisterRequestDTO registerRequestDTO) {
+        return timed("register", () -> registerUser(registerRequestDTO));
+    }
+
+    private AuthResponseDTO registerUser(RegisterRequestDTO registerRequestDTO) {
 
-        if (userRepository.findByEmail(registerRequestDTO.email()).isPresent()) {
+        if (userRepository.existsByEmail(registerRequestDTO.email())) {
             throw  new ConflictException("El email ya está registrado");
         }
 
-        Rol defaultRol = rolRepository.findByRol(Erol.ROLE_USER)
-                .orElseThrow(() -> new ResourceNotFoundException("Rol por defecto no encontrado"));
+        Rol defaultRol = roleRegistry.reference(Erol.ROLE_USER);
 
         User newUser = User.builder()
                 .username(registerRequestDTO.username())
@@ -68,8 +77,7 @@ public class AuthenticationService {
 
         User savedUser = userRepository.save(newUser);
 
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(savedUser.getEmail());
-        String jwtToken = jwtService.generateToken(userDetails);
+        String jwtToken = jwtService.generateToken(customUserDetailsService.toUserDetails(savedUser));
 
 
         return new AuthResponseDTO(
@@ -80,10 +88,19 @@ public class AuthenticationService {
         );
     }
 
+    /**
+     * El usuario se carga una sola vez (dentro de AuthenticationManager, via CustomUserDetailsService)
+     * y la respuesta se construye con el principal autenticado.
+     */
     @Transactional
     public AuthResponseDTO authenticate(LoginRequestDTO request) {
+        return timed("login", () -> authenticateWithPassword(request));
+    }
+
+    private AuthResponseDTO authenticateWithPassword(LoginRequestDTO request) {
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.email(),
                             request.password()
@@ -93,22 +110,26 @@ public class AuthenticationService {
             throw new BadCredentialsException("Credenciales inválidas");
         }
 
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(user.getEmail());
-        String jwtToken = jwtService.generateToken(userDetails);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        String jwtToken = jwtService.generateToken(user);
 
         return new AuthResponseDTO(
                 user.getId(),
+                user.getDisplayName(),
                 user.getUsername(),
-                user.getEmail(),
                 jwtToken
         );
     }
 
-    @Transactional
+    /**
+     * Sin transaccion envolvente: cada paso es atomico por si solo y el INSERT de un usuario nuevo
+     * puede fallar por concurrencia sin dejar la sesion de Hibernate inutilizable.
+     */
     public AuthResponseDTO authenticateWithGoogle(GoogleLoginRequestDTO request) {
+        return timed("google", () -> authenticateGoogleUser(request));
+    }
+
+    private AuthResponseDTO authenticateGoogleUser(GoogleLoginRequestDTO request) {
         // Verify Google token using Spring OAuth2
         Map<String, Object> userInfo = googleAuthService.verifyGoogleToken(request.token());
         
@@ -116,39 +137,27 @@ public class AuthenticationService {
         String name = (String) userInfo.get("name");
         String googleId = (String) userInfo.get("sub");
         
-        // Check if user already exists
-        Optional<User> existingUser = userRepository.findByEmail(email);
+        // Una sola consulta por google_id o email; si ya esta vinculado gana la coincidencia por google_id
+        List<User> candidates = userRepository.findByGoogleIdOrEmailWithRol(googleId, email);
+        Optional<User> existingUser = candidates.stream()
+                .filter(candidate -> googleId.equals(candidate.getGoogleId()))
+                .findFirst()
+                .or(() -> candidates.stream().findFirst());
         
         User user;
         if (existingUser.isPresent()) {
             // User exists, update Google ID if not set
             user = existingUser.get();
-            if (user.getGoogleId() == null) {
+            if (user.getGoogleId() == null && userRepository.linkGoogleId(user.getId(), googleId) == 1) {
                 user.setGoogleId(googleId);
-                user = userRepository.save(user);
+                customUserDetailsService.evict(user.getEmail());
             }
         } else {
-            // Create new user with Google account
-            Rol defaultRol = rolRepository.findByRol(Erol.ROLE_ADMIN)
-                    .orElseThrow(() -> new ResourceNotFoundException("Rol por defecto no encontrado"));
-            
-            // For Google users, we generate a random password that they won't use
-            String randomPassword = UUID.randomUUID().toString();
-            
-            user = User.builder()
-                    .username(name != null ? name : email.split("@")[0])
-                    .email(email)
-                    .password(passwordEncoder.encode(randomPassword))
-                    .googleId(googleId)
-                    .rol(defaultRol)
-                    .build();
-            
-            user = userRepository.save(user);
+            user = createGoogleUser(email, name, googleId);
         }
         
         // Generate JWT token
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(user.getEmail());
-        String jwtToken = jwtService.generateToken(userDetails);
+        String jwtToken = jwtService.generateToken(customUserDetailsService.toUserDetails(user));
         
         return new AuthResponseDTO(
                 user.getId(),
@@ -158,4 +167,52 @@ public class AuthenticationService {
         );
     }
 
+    /**
+     * Alta de un usuario de Google. Las cuentas externas guardan un marcador en vez de un hash
+     * (no se ejecuta BCrypt). Si otra peticion del mismo usuario lo ha creado a la vez, la
+     * restriccion unica hace fallar este INSERT y se devuelve el usuario ya existente.
+     */
+    private User createGoogleUser(String email, String name, String googleId) {
+        // Create new user with Google account
+        Rol defaultRol = roleRegistry.reference(Erol.ROLE_ADMIN);
+
+        User user = User.builder()
+                .username(name != null ? name : email.split("@")[0])
+                .email(email)
+                .password(User.EXTERNAL_AUTH_PASSWORD)
+                .googleId(googleId)
+                .rol(defaultRol)
+                .build();
+
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            return userRepository.findByGoogleIdOrEmailWithRol(googleId, email).stream()
+                    .findFirst()
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Mide un flujo completo en {@code auth.flow.duration} (sin el commit de la transaccion envolvente),
+     * etiquetado con el resultado y, si falla, la excepcion.
+     */
+    private <T> T timed(String flow, Supplier<T> body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return body.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("auth.flow.duration")
+                    .description("Flujos de AuthenticationService: registro, login y login con Google")
+                    .tag("flow", flow)
+                    .tag("outcome", "none".equals(exception) ? "success" : "failure")
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
 }
@@ -1,54 +1,168 @@
 package org.ghosty.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.ghosty.exception.BadRequestException;
+import org.ghosty.exception.ServiceUnavailableException;
+import org.ghosty.security.JwksKeyCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
-import java.util.HashMap;
+import java.security.Key;
+import java.security.PublicKey;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class GoogleAuthService {
 
+    private static final Set<String> GOOGLE_ISSUERS = Set.of("accounts.google.com", "https://accounts.google.com");
+
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
     private String googleClientId;
 
+    // local: firma RS256 contra el JWKS cacheado | tokeninfo: llamada HTTP a Google por login
+    @Value("${google.auth.verification:local}")
+    private String verificationMode;
+
+    @Value("${google.auth.tokeninfo-uri:https://oauth2.googleapis.com/tokeninfo}")
+    private String tokenInfoUri;
+
+    @Value("${google.auth.clock-skew-seconds:60}")
+    private long clockSkewSeconds;
+
     private final RestTemplate restTemplate;
+    private final JwksKeyCache googleJwksKeyCache;
+    private final MeterRegistry meterRegistry;
+    private JwtParser googleTokenParser;
 
-    public GoogleAuthService(RestTemplate restTemplate) {
+    public GoogleAuthService(RestTemplate restTemplate, JwksKeyCache googleJwksKeyCache, MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.googleJwksKeyCache = googleJwksKeyCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        googleTokenParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                            throw new UnsupportedJwtException("Algoritmo no soportado: " + header.getAlgorithm());
+                        }
+                        PublicKey key;
+                        try {
+                            key = googleJwksKeyCache.getKey(header.getKeyId());
+                        } catch (ServiceUnavailableException e) {
+                            // Circuito abierto o bulkhead lleno al descargar el JWKS
+                            throw e;
+                        } catch (RuntimeException e) {
+                            // Sin claves y sin poder descargarlas (red, 5xx, JSON invalido): no es culpa del token
+                            throw new ServiceUnavailableException("No se pudieron obtener las claves públicas de Google. Inténtalo de nuevo en unos segundos");
+                        }
+                        if (key == null) {
+                            throw new SignatureException("Clave de firma desconocida (kid: " + header.getKeyId() + ")");
+                        }
+                        return key;
+                    }
+                })
+                .setAllowedClockSkewSeconds(clockSkewSeconds)
+                .build();
     }
 
     /**
      * Verify Google ID Token (JWT) from Google Sign-In
-     * Este método verifica el token usando el endpoint público de Google
+     * Por defecto se verifica en local (firma, aud, iss, exp y email_verified) sin llamar a Google.
      */
     public Map<String, Object> verifyGoogleToken(String idToken) {
+        boolean tokenInfo = "tokeninfo".equalsIgnoreCase(verificationMode);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Map<String, Object> userInfo = tokenInfo ? verifyWithTokenInfo(idToken) : verifyLocally(idToken);
+            outcome = "success";
+            return userInfo;
+        } finally {
+            sample.stop(Timer.builder("google.auth.verify.duration")
+                    .description("Verificacion del ID token de Google (local con JWKS o llamada a tokeninfo)")
+                    .tag("mode", tokenInfo ? "tokeninfo" : "local")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private Map<String, Object> verifyLocally(String idToken) {
+        Claims claims;
+        try {
+            claims = googleTokenParser.parseClaimsJws(idToken).getBody();
+        } catch (ExpiredJwtException e) {
+            throw new BadRequestException("El token de Google ha expirado");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadRequestException("Token de Google inválido: " + e.getMessage());
+        }
+
+        // JJWT solo comprueba exp si viene en el token; Google siempre lo incluye
+        if (claims.getExpiration() == null) {
+            throw new BadRequestException("El token de Google no tiene fecha de expiración");
+        }
+
+        if (!GOOGLE_ISSUERS.contains(claims.getIssuer())) {
+            throw new BadRequestException("El token no ha sido emitido por Google");
+        }
+        if (!googleClientId.equals(claims.getAudience())) {
+            throw new BadRequestException("El token no es para esta aplicación");
+        }
+        if (claims.get("email") == null || claims.getSubject() == null) {
+            throw new BadRequestException("Token de Google no contiene información de usuario");
+        }
+        Object emailVerified = claims.get("email_verified");
+        if (!Boolean.TRUE.equals(emailVerified) && !"true".equals(emailVerified)) {
+            throw new BadRequestException("El email no está verificado en Google");
+        }
+        return claims;
+    }
+
+    /**
+     * Verificacion anterior: una llamada bloqueante al endpoint tokeninfo de Google por login.
+     */
+    private Map<String, Object> verifyWithTokenInfo(String idToken) {
         try {
             // Usar el endpoint de tokeninfo de Google para verificar el token
-            String url = "https://oauth2.googleapis.com/tokeninfo?id_token=" + idToken;
-            
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
+            // Plantilla de URI: el token se codifica y no aparece en la etiqueta uri de http.client.requests
+            ResponseEntity<Map> response = restTemplate.getForEntity(tokenInfoUri + "?id_token={idToken}", Map.class, idToken);
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> tokenInfo = response.getBody();
-                
+
                 // Verificar que el token es para nuestra aplicación
                 String audience = (String) tokenInfo.get("aud");
                 if (!googleClientId.equals(audience)) {
                     throw new BadRequestException("El token no es para esta aplicación");
                 }
-                
+
                 // Verificar que el token tiene la información necesaria
                 if (!tokenInfo.containsKey("email") || !tokenInfo.containsKey("sub")) {
                     throw new BadRequestException("Token de Google no contiene información de usuario");
                 }
-                
+
                 // Verificar que el email está verificado
                 Object emailVerified = tokenInfo.get("email_verified");
                 if (emailVerified == null || !(emailVerified instanceof Boolean) || !(Boolean) emailVerified) {
@@ -56,7 +170,7 @@ public class GoogleAuthService {
                         throw new BadRequestException("El email no está verificado en Google");
                     }
                 }
-                
+
                 return tokenInfo;
             }
             throw new BadRequestException("Token de Google inválido");
@@ -74,8 +188,13 @@ public class GoogleAuthService {
                     errorDetails = " (aud: " + claims.getAudience() + ")";
                 }
             } catch (Exception ignored) {}
-            
+
             throw new BadRequestException("Error al verificar el token de Google: " + e.getMessage() + errorDetails);
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            // Timeout, error de red o 5xx: Google no esta disponible, no es culpa del token
+            throw new ServiceUnavailableException("No se pudo verificar el token con Google. Inténtalo de nuevo en unos segundos");
         } catch (Exception e) {
             throw new BadRequestException("Error inesperado al verificar el token de Google: " + e.getMessage());
         }
@@ -0,0 +1,105 @@
+package org.ghosty.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ghosty.dto.response.UserResponseDTO;
+import org.ghosty.exception.BadRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Posicion de un listado de usuarios por cursor (keyset): orden por una columna + id como desempate.
+ * El token que ve el cliente es JSON en base64url con el orden y los valores de la ultima fila
+ * ({@code key} e {@code id}, ambos nulos en la primera pagina); la siguiente pagina se pide con
+ * {@code WHERE (col, id) > (?, ?)} en vez de OFFSET.
+ */
+record KeysetCursor(Sort.Order order, String key, Long id) {
+
+    static final String ID = "id";
+    private static final Set<String> SORTABLE = Set.of(ID, "username", "email");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private record Token(String sort, Sort.Direction dir, String key, long id) {
+    }
+
+    /**
+     * Primera pagina. Se admite una sola propiedad de orden (id, username o email); por defecto id.
+     */
+    static KeysetCursor first(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty()) {
+            return new KeysetCursor(Sort.Order.asc(ID), null, null);
+        }
+        if (orders.size() != 1 || !SORTABLE.contains(orders.get(0).getProperty())) {
+            throw new BadRequestException("Orden no soportado. Se permite uno de: id, username, email");
+        }
+        Sort.Order order = orders.get(0);
+        return new KeysetCursor(new Sort.Order(order.getDirection(), order.getProperty()), null, null);
+    }
+
+    static KeysetCursor decode(String cursor) {
+        Token token;
+        try {
+            token = MAPPER.readValue(DECODER.decode(cursor), Token.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+        if (token.sort() == null || !SORTABLE.contains(token.sort()) || token.dir() == null
+                || (!ID.equals(token.sort()) && token.key() == null)) {
+            throw new BadRequestException("Cursor inválido");
+        }
+        String key = ID.equals(token.sort()) ? null : token.key();
+        return new KeysetCursor(new Sort.Order(token.dir(), token.sort()), key, token.id());
+    }
+
+    KeysetScrollPosition position() {
+        if (id == null) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (key != null) {
+            keys.put(order.getProperty(), key);
+        }
+        keys.put(ID, id);
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Orden completo de la consulta; el id desempata en la misma direccion para que un indice
+     * {@code (col, id)} sirva tanto ascendente como descendente.
+     */
+    Sort sort() {
+        if (ID.equals(order.getProperty())) {
+            return Sort.by(order);
+        }
+        return Sort.by(order, new Sort.Order(order.getDirection(), ID));
+    }
+
+    /**
+     * Token de la pagina que empieza justo despues de {@code last}.
+     */
+    String next(UserResponseDTO last) {
+        String key = switch (order.getProperty()) {
+            case "username" -> last.username();
+            case "email" -> last.email();
+            default -> null;
+        };
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(new Token(order.getProperty(), order.getDirection(), key, last.id()));
+            return ENCODER.encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
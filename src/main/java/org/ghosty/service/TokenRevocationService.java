@@ -0,0 +1,53 @@
+package org.ghosty.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.ghosty.model.RevokedToken;
+import org.ghosty.repository.RevokedTokenRepository;
+import org.ghosty.security.JwtService;
+import org.ghosty.security.TokenRevocationList;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Revocacion de tokens por jti: se guarda en {@code revoked_tokens} hasta que el token caduca y se anade
+ * al instante a la lista en memoria de este nodo; el resto de nodos la recoge en su siguiente sondeo.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final JwtService jwtService;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenRevocationList tokenRevocationList;
+
+    public TokenRevocationService(JwtService jwtService,
+                                  RevokedTokenRepository revokedTokenRepository,
+                                  TokenRevocationList tokenRevocationList) {
+        this.jwtService = jwtService;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    /**
+     * Revoca el token si sigue siendo valido. Los tokens con firma invalida o caducados ya no autentican
+     * y se ignoran, igual que los emitidos sin jti (dejan de valer al caducar).
+     */
+    public void revoke(String token) {
+        Claims claims;
+        try {
+            claims = jwtService.extractClaim(token, c -> c);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        if (claims.getId() == null || tokenRevocationList.isRevoked(claims.getId())) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(claims.getId())
+                .expiresAt(claims.getExpiration().toInstant())
+                .revokedAt(Instant.now())
+                .build());
+        tokenRevocationList.add(claims.getId(), claims.getExpiration().getTime());
+    }
+}
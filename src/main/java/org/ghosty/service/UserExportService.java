@@ -0,0 +1,208 @@
+package org.ghosty.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ghosty.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Exportacion completa de la tabla de usuarios con memoria constante: las filas se leen de un
+ * cursor JDBC de solo avance y se escriben a la respuesta segun llegan, sin entidades ni listas.
+ */
+@Service
+public class UserExportService {
+
+    private static final String EXPORT_QUERY = "select u.id, u.username, u.email, r.rol "
+            + "from users u left join roles r on r.id = u.rol_id order by u.id";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Formato de exportación inválido. Los formatos permitidos son: ndjson o csv");
+            }
+        }
+    }
+
+    // Filas por ida y vuelta al servidor. En MySQL solo se respeta con useCursorFetch=true en la URL;
+    // en PostgreSQL solo dentro de una transaccion (por eso el metodo es transaccional)
+    @Value("${users.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // Cada cuantas filas se fuerza el envio al cliente
+    @Value("${users.export.flush-rows:1000}")
+    private int flushRows;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public UserExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe todos los usuarios en {@code out} y devuelve el numero de filas exportadas.
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        try {
+            RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            ExportCallback callback = new ExportCallback(rowWriter);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, callback);
+            rowWriter.flush();
+            return callback.rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final class ExportCallback implements RowCallbackHandler {
+
+        private final RowWriter rowWriter;
+        private long rows;
+
+        private ExportCallback(RowWriter rowWriter) {
+            this.rowWriter = rowWriter;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                rowWriter.write(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+                if (++rows % flushRows == 0) {
+                    rowWriter.flush();
+                }
+            } catch (IOException e) {
+                // Normalmente el cliente ha cortado la descarga: se aborta la consulta
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private interface RowWriter {
+        void write(long id, String username, String email, String rol) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(long id, String username, String email, String rol) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeStringField("username", username);
+            generator.writeStringField("email", email);
+            generator.writeStringField("rol", rol);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("id,username,email,rol\r\n");
+        }
+
+        @Override
+        public void write(long id, String username, String email, String rol) throws IOException {
+            writer.write(Long.toString(id));
+            writer.write(',');
+            writeField(username);
+            writer.write(',');
+            writeField(email);
+            writer.write(',');
+            writeField(rol);
+            writer.write("\r\n");
+        }
+
+        /**
+         * Campo RFC 4180; los valores que empiezan por = + - @ se prefijan con ' para que una hoja
+         * de calculo no los interprete como formulas.
+         */
+        private void writeField(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean formula = "=+-@".indexOf(value.charAt(0)) >= 0;
+            boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package org.ghosty.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.ghosty.dto.request.CreateUserRequestDTO;
+import org.ghosty.dto.response.BatchImportResponseDTO;
+import org.ghosty.dto.response.BatchImportRowResultDTO;
+import org.ghosty.dto.response.BatchImportRowResultDTO.Status;
+import org.ghosty.enums.Erol;
+import org.ghosty.exception.BadRequestException;
+import org.ghosty.model.User;
+import org.ghosty.repository.UserRepository;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.PasswordHashingExecutor;
+import org.ghosty.security.RoleRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de usuarios (JSON o CSV). La entrada se lee en streaming y se procesa por bloques:
+ * por bloque, una consulta para los emails ya registrados, hashes BCrypt en paralelo en el
+ * {@link PasswordHashingExecutor} e INSERTs en batches JDBC (ids de la secuencia pooled).
+ * Cada bloque se confirma en su propia transaccion; el resultado se informa fila a fila.
+ */
+@Service
+public class UserImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("username", "email", "password", "rol");
+
+    @Value("${users.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${users.import.max-rows:100000}")
+    private int maxRows;
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserImportService(UserRepository userRepository, RoleRegistry roleRegistry, PasswordEncoder passwordEncoder,
+                             PasswordHashingExecutor passwordHashingExecutor, CustomUserDetailsService customUserDetailsService,
+                             Validator validator, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.customUserDetailsService = customUserDetailsService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record ImportRow(int number, CreateUserRequestDTO user) {
+    }
+
+    private interface RowReader {
+        /**
+         * Siguiente fila o {@code null} al terminar; lanza IOException si la entrada esta mal formada.
+         */
+        ImportRow next() throws IOException;
+    }
+
+    /**
+     * Importa un array JSON de {@link CreateUserRequestDTO} sin cargarlo entero en memoria.
+     */
+    public BatchImportResponseDTO importJson(InputStream in) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new BadRequestException("Se esperaba un array JSON de usuarios");
+        }
+        return importRows(new RowReader() {
+            private int row;
+
+            @Override
+            public ImportRow next() throws IOException {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                return new ImportRow(++row, objectMapper.readValue(parser, CreateUserRequestDTO.class));
+            }
+        });
+    }
+
+    /**
+     * Importa un CSV con cabecera (columnas username, email, password y rol en cualquier orden).
+     */
+    public BatchImportResponseDTO importCsv(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String headerLine = lines.readLine();
+        List<String> header = headerLine == null ? null : parseCsvLine(headerLine);
+        if (header == null) {
+            throw new BadRequestException("CSV vacío o con la cabecera mal formada");
+        }
+        List<String> names = header.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        int[] columns = CSV_COLUMNS.stream().mapToInt(names::indexOf).toArray();
+        if (Arrays.stream(columns).anyMatch(index -> index < 0)) {
+            throw new BadRequestException("Cabecera CSV inválida: se requieren las columnas " + String.join(", ", CSV_COLUMNS));
+        }
+
+        return importRows(new RowReader() {
+            private int row;
+
+            @Override
+            public ImportRow next() throws IOException {
+                String line;
+                do {
+                    line = lines.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                } while (line.isBlank());
+                row++;
+                List<String> fields = parseCsvLine(line);
+                if (fields == null) {
+                    throw new IOException("línea CSV mal formada");
+                }
+                return new ImportRow(row, new CreateUserRequestDTO(
+                        field(fields, columns[0]), field(fields, columns[1]),
+                        field(fields, columns[2]), field(fields, columns[3])));
+            }
+        });
+    }
+
+    private BatchImportResponseDTO importRows(RowReader reader) {
+        List<BatchImportRowResultDTO> results = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        int rows = 0;
+        BatchImportRowResultDTO stop = null;
+        while (true) {
+            ImportRow row;
+            try {
+                row = reader.next();
+            } catch (IOException e) {
+                stop = result(rows + 1, null, Status.FAILED, null, "Entrada mal formada, se detiene la importación: " + e.getMessage());
+                break;
+            }
+            if (row == null) {
+                break;
+            }
+            if (++rows > maxRows) {
+                stop = result(rows, null, Status.FAILED, null, "Se ha superado el máximo de " + maxRows + " filas por importación");
+                break;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seenEmails, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seenEmails, results);
+        }
+        if (stop != null) {
+            results.add(stop);
+        }
+
+        int created = (int) results.stream().filter(result -> result.status() == Status.CREATED).count();
+        return BatchImportResponseDTO.builder()
+                .total(results.size())
+                .created(created)
+                .failed(results.size() - created)
+                .results(results)
+                .build();
+    }
+
+    private void importChunk(List<ImportRow> chunk, Set<String> seenEmails, List<BatchImportRowResultDTO> results) {
+        BatchImportRowResultDTO[] outcome = new BatchImportRowResultDTO[chunk.size()];
+        List<Integer> candidates = new ArrayList<>();
+        Erol[] roles = new Erol[chunk.size()];
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow row = chunk.get(i);
+            CreateUserRequestDTO user = row.user();
+            Set<ConstraintViolation<CreateUserRequestDTO>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                outcome[i] = result(row, Status.INVALID, null, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            try {
+                roles[i] = UserService.parseRol(user.rol());
+            } catch (BadRequestException e) {
+                outcome[i] = result(row, Status.INVALID, null, e.getMessage());
+                continue;
+            }
+            if (!seenEmails.add(User.normalizeEmail(user.email()))) {
+                outcome[i] = result(row, Status.DUPLICATE, null, "Email repetido en la importación");
+                continue;
+            }
+            candidates.add(i);
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> existing = userRepository.findExistingEmails(
+                    candidates.stream().map(i -> User.normalizeEmail(chunk.get(i).user().email())).toList());
+            List<Integer> toCreate = new ArrayList<>(candidates.size());
+            for (int i : candidates) {
+                if (existing.contains(User.normalizeEmail(chunk.get(i).user().email()))) {
+                    outcome[i] = result(chunk.get(i), Status.DUPLICATE, null, "El email ya está registrado");
+                } else {
+                    toCreate.add(i);
+                }
+            }
+
+            List<String> hashes = passwordHashingExecutor.mapAll(toCreate,
+                    i -> passwordEncoder.encode(chunk.get(i).user().password()));
+            List<User> users = new ArrayList<>(toCreate.size());
+            for (int n = 0; n < toCreate.size(); n++) {
+                CreateUserRequestDTO user = chunk.get(toCreate.get(n)).user();
+                users.add(User.builder()
+                        .username(user.username())
+                        .email(user.email())
+                        .password(hashes.get(n))
+                        .build());
+            }
+            save(chunk, toCreate, roles, users, outcome);
+        }
+
+        results.addAll(Arrays.asList(outcome));
+    }
+
+    /**
+     * Guarda el bloque en una transaccion (INSERTs en batch). Si otro alta concurrente ha registrado
+     * alguno de los emails, se reintenta fila a fila para marcar solo los duplicados.
+     */
+    private void save(List<ImportRow> chunk, List<Integer> toCreate, Erol[] roles, List<User> users,
+                      BatchImportRowResultDTO[] outcome) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int n = 0; n < users.size(); n++) {
+                    users.get(n).setRol(roleRegistry.reference(roles[toCreate.get(n)]));
+                }
+                userRepository.saveAll(users);
+                userRepository.flush();
+            });
+        } catch (DataIntegrityViolationException e) {
+            for (int n = 0; n < users.size(); n++) {
+                User user = users.get(n);
+                Erol rol = roles[toCreate.get(n)];
+                // El batch fallido ya les puso id y version: sin borrar ambos, Spring Data los trataria como
+                // existentes (merge en vez de persist) y el id guardado quedaria solo en la copia devuelta
+                user.setId(null);
+                user.setVersion(null);
+                try {
+                    users.set(n, transactionTemplate.execute(status -> {
+                        user.setRol(roleRegistry.reference(rol));
+                        return userRepository.saveAndFlush(user);
+                    }));
+                } catch (DataIntegrityViolationException rowException) {
+                    ImportRow row = chunk.get(toCreate.get(n));
+                    outcome[toCreate.get(n)] = userRepository.existsByEmail(user.getEmail())
+                            ? result(row, Status.DUPLICATE, null, "El email ya está registrado")
+                            : result(row, Status.FAILED, null, "No se pudo guardar el usuario: " + rowException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        for (int n = 0; n < users.size(); n++) {
+            int i = toCreate.get(n);
+            if (outcome[i] == null) {
+                customUserDetailsService.evict(users.get(n).getEmail());
+                outcome[i] = result(chunk.get(i), Status.CREATED, users.get(n).getId(), null);
+            }
+        }
+    }
+
+    private static BatchImportRowResultDTO result(ImportRow row, Status status, Long id, String error) {
+        return result(row.number(), row.user().email(), status, id, error);
+    }
+
+    private static BatchImportRowResultDTO result(int row, String email, Status status, Long id, String error) {
+        return BatchImportRowResultDTO.builder()
+                .row(row)
+                .email(email)
+                .status(status)
+                .id(id)
+                .error(error)
+                .build();
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Campos de una linea CSV (RFC 4180 sin saltos de linea dentro de comillas); {@code null} si las
+     * comillas no estan cerradas.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -1,74 +1,195 @@
 package org.ghosty.service;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import org.ghosty.dto.request.BulkDeleteRequestDTO;
+import org.ghosty.dto.request.BulkRoleChangeRequestDTO;
 import org.ghosty.dto.request.CreateUserRequestDTO;
 import org.ghosty.dto.request.UpdateUserRequestDTO;
+import org.ghosty.dto.request.UserFilterDTO;
+import org.ghosty.dto.response.BulkOperationResponseDTO;
+import org.ghosty.dto.response.CursorPageResponseDTO;
 import org.ghosty.dto.response.UserResponseDTO;
 import org.ghosty.enums.Erol;
 import org.ghosty.exception.BadRequestException;
 import org.ghosty.exception.ConflictException;
+import org.ghosty.exception.PreconditionFailedException;
 import org.ghosty.exception.ResourceNotFoundException;
 import org.ghosty.model.Rol;
 import org.ghosty.model.User;
-import org.ghosty.repository.RoleRepository;
 import org.ghosty.repository.UserRepository;
+import org.ghosty.repository.UserRepository.UserKey;
+import org.ghosty.repository.UserRepository.UserVersion;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.RoleRegistry;
+import org.ghosty.security.SecurityEpochRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    static final int MAX_SCROLL_SIZE = 2000;
+
+    /**
+     * Usuario y version de su fila, para el ETag de la respuesta.
+     */
+    public record VersionedUser(UserResponseDTO user, long version) {
+    }
+
+    @Value("${users.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final CustomUserDetailsService customUserDetailsService;
 
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRegistry roleRegistry, PasswordEncoder passwordEncoder, SecurityEpochRegistry securityEpochRegistry, CustomUserDetailsService customUserDetailsService) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.passwordEncoder = passwordEncoder;
+        this.securityEpochRegistry = securityEpochRegistry;
+        this.customUserDetailsService = customUserDetailsService;
     }
 
+    // Solo lectura: proyeccion directa al DTO y sin flush ni snapshots de Hibernate
+    @Transactional(readOnly = true)
     public Page<UserResponseDTO> findAllDTO(Pageable pageable) {
-        return userRepository.findAll(pageable)
+        return userRepository.findAllDTO(pageable);
+    }
+
+    /**
+     * Ids y versiones de una pagina del listado (con el total), para su ETag: si el cliente ya la tiene,
+     * no hace falta leer el resto de columnas ni serializar nada.
+     */
+    @Transactional(readOnly = true)
+    public Page<UserVersion> findVersions(Pageable pageable) {
+        return userRepository.findAllVersions(pageable);
+    }
+
+    /**
+     * Los DTO de una pagina ya leida con {@link #findVersions}, en el mismo orden y con el mismo total.
+     * Una fila borrada entre las dos consultas simplemente no aparece.
+     */
+    @Transactional(readOnly = true)
+    public Page<UserResponseDTO> findAllDTO(Page<UserVersion> versions) {
+        List<Long> ids = versions.getContent().stream().map(UserVersion::getId).toList();
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), versions.getPageable(), versions.getTotalElements());
+        }
+        Map<Long, UserResponseDTO> byId = userRepository.findDTOsByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserResponseDTO::id, Function.identity()));
+        List<UserResponseDTO> content = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(content, versions.getPageable(), versions.getTotalElements());
+    }
+
+    /**
+     * Listado por cursor: cada pagina cuesta lo mismo que la primera (seek sobre el indice)
+     * y no se cuenta la tabla. Sin cursor se empieza por el principio con el orden indicado.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<UserResponseDTO> scrollDTO(String cursor, int size, Sort sort) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BadRequestException("El tamaño de página debe estar entre 1 y " + MAX_SCROLL_SIZE);
+        }
+        KeysetCursor position = cursor == null || cursor.isBlank()
+                ? KeysetCursor.first(sort)
+                : KeysetCursor.decode(cursor);
+
+        Window<User> window = scroll(position, Limit.of(size));
+        List<UserResponseDTO> content = window.getContent().stream()
                 .map(user -> UserResponseDTO.builder()
                         .id(user.getId())
                         .username(user.getUsername())
                         .email(user.getEmail())
-                        .rol(user.getRol().getRol())
-                        .build()
-                );
+                        .rol(roleRegistry.roleOf(user.getRol()))
+                        .build())
+                .toList();
+
+        return CursorPageResponseDTO.<UserResponseDTO>builder()
+                .content(content)
+                .size(content.size())
+                .next(window.hasNext() && !content.isEmpty() ? position.next(content.getLast()) : null)
+                .build();
     }
 
+    private Window<User> scroll(KeysetCursor cursor, Limit limit) {
+        String key = cursor.key();
+        if (key == null) {
+            return userRepository.findAllBy(cursor.position(), cursor.sort(), limit);
+        }
+        boolean ascending = cursor.order().isAscending();
+        if ("username".equals(cursor.order().getProperty())) {
+            return ascending
+                    ? userRepository.findAllByUsernameGreaterThanEqual(key, cursor.position(), cursor.sort(), limit)
+                    : userRepository.findAllByUsernameLessThanEqual(key, cursor.position(), cursor.sort(), limit);
+        }
+        return ascending
+                ? userRepository.findAllByEmailGreaterThanEqual(key, cursor.position(), cursor.sort(), limit)
+                : userRepository.findAllByEmailLessThanEqual(key, cursor.position(), cursor.sort(), limit);
+    }
 
+    @Transactional(readOnly = true)
     public UserResponseDTO findById (Long id) {
-        User user = userRepository.findById(id).orElseThrow(
+        return userRepository.findDTOById(id).orElseThrow(
                 () -> new ResourceNotFoundException("Usuario con id " + id + " no encontrado")
         );
-        return UserResponseDTO.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .rol(user.getRol().getRol())
-                .build();
     }
 
+    /**
+     * Version actual de la fila, sin cargar la entidad.
+     */
+    @Transactional(readOnly = true)
+    public long findVersion(Long id) {
+        return userRepository.findVersionById(id).orElseThrow(
+                () -> new ResourceNotFoundException("Usuario con id " + id + " no encontrado")
+        );
+    }
+
+    /**
+     * Con {@code expectedVersion} (If-Match) solo actualiza si la fila sigue en esa version; si cambia
+     * entre la lectura y el UPDATE, el bloqueo optimista de Hibernate lo detecta igualmente.
+     */
     @Transactional
-    public UserResponseDTO updateUser (Long id, @Valid UpdateUserRequestDTO updateUserRequestDTO) {
+    public VersionedUser updateUser (Long id, @Valid UpdateUserRequestDTO updateUserRequestDTO, Long expectedVersion) {
         User user = userRepository.findById(id).orElseThrow(
                 () -> new ResourceNotFoundException("Usuario con id " + id + " no encontrado")
         );
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new PreconditionFailedException("El usuario con id " + id + " ha cambiado desde la versión indicada en If-Match");
+        }
+        // Los tokens emitidos con el email anterior dejan de ser validos
+        invalidateSecurity(List.of(user.getEmail(), updateUserRequestDTO.email()));
         user.setUsername(updateUserRequestDTO.username());
         user.setEmail(updateUserRequestDTO.email());
-        User updated = userRepository.save(user);
-        return UserResponseDTO.builder()
+        // flush para tener ya la version nueva (la del ETag de la respuesta)
+        User updated = userRepository.saveAndFlush(user);
+        return new VersionedUser(UserResponseDTO.builder()
                 .id(updated.getId())
                 .username(updated.getUsername())
                 .email(updated.getEmail())
-                .rol(updated.getRol().getRol())
-                .build();
+                .rol(roleRegistry.roleOf(updated.getRol()))
+                .build(), updated.getVersion());
     }
 
 
@@ -79,22 +200,10 @@ public class UserService {
             throw new ConflictException("El email ya está registrado");
         }
 
-        // string del rol a enum Erol
-        Erol rolEnum;
-        try {
+        Erol rolEnum = parseRol(createUserRequestDTO.rol());
 
-            String roleName = createUserRequestDTO.rol().toUpperCase();
-            if (!roleName.startsWith("ROLE_")) {
-                roleName = "ROLE_" + roleName;
-            }
-            rolEnum = Erol.valueOf(roleName);
-        } catch (IllegalArgumentException e) {
-            throw new BadRequestException("Rol inválido. Los roles permitidos son: ADMIN o USER");
-        }
 
-
-        Rol rol = roleRepository.findByRol(rolEnum)
-                .orElseThrow(() -> new ResourceNotFoundException("Rol " + rolEnum + " no encontrado en la base de datos"));
+        Rol rol = roleRegistry.reference(rolEnum);
 
 
         User user = User.builder()
@@ -105,19 +214,147 @@ public class UserService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        customUserDetailsService.evict(savedUser.getEmail());
 
 
         return UserResponseDTO.builder()
                 .id(savedUser.getId())
                 .username(savedUser.getUsername())
                 .email(savedUser.getEmail())
-                .rol(savedUser.getRol().getRol())
+                .rol(rolEnum)
                 .build();
     }
 
 
     @Transactional
     public void  deleteUser (Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            invalidateSecurity(List.of(user.getEmail()));
+            userRepository.delete(user);
+        });
+    }
+
+    /**
+     * Borrado masivo (ids o filtro): por bloque, una consulta de claves y un {@code DELETE ... WHERE id IN}.
+     */
+    @Transactional
+    public BulkOperationResponseDTO bulkDelete(BulkDeleteRequestDTO request) {
+        return bulk(request.ids(), request.filter(), null, userRepository::deleteAllByIdIn);
+    }
+
+    /**
+     * Cambio de rol masivo (ids o filtro): por bloque, una consulta de claves y un {@code UPDATE ... WHERE id IN}.
+     * Los usuarios que ya tienen el rol destino cuentan como seleccionados pero no se modifican.
+     */
+    @Transactional
+    public BulkOperationResponseDTO bulkChangeRol(BulkRoleChangeRequestDTO request) {
+        Long rolId = roleRegistry.reference(parseRol(request.rol())).getId();
+        return bulk(request.ids(), request.filter(), rolId, ids -> userRepository.updateRolByIdIn(ids, rolId));
+    }
+
+    /**
+     * Recorre la seleccion por bloques de {@code users.bulk.chunk-size} ids y aplica {@code statement} a cada
+     * bloque. Antes de cada sentencia invalida la cache y la epoca de los usuarios que van a cambiar, igual
+     * que las operaciones individuales. Los usuarios con rol {@code skipRolId} se omiten.
+     */
+    private BulkOperationResponseDTO bulk(List<Long> ids, UserFilterDTO filter, Long skipRolId,
+                                          ToIntFunction<List<Long>> statement) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        if (byIds == (filter != null)) {
+            throw new BadRequestException("Indica una lista de ids o un filtro (solo uno de los dos)");
+        }
+
+        long matched = 0;
+        long affected = 0;
+        if (byIds) {
+            List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+            for (int from = 0; from < distinct.size(); from += bulkChunkSize) {
+                List<UserKey> keys = userRepository.findKeysByIdIn(
+                        distinct.subList(from, Math.min(from + bulkChunkSize, distinct.size())));
+                matched += keys.size();
+                affected += applyChunk(keys, skipRolId, statement);
+            }
+        } else {
+            Long rolId = filter.rol() != null ? roleRegistry.reference(parseRol(filter.rol())).getId() : null;
+            String emailPattern = filter.emailDomain() != null && !filter.emailDomain().isBlank()
+                    ? "%@" + escapeLike(User.normalizeEmail(filter.emailDomain().trim()))
+                    : null;
+            if (rolId == null && emailPattern == null) {
+                throw new BadRequestException("El filtro debe indicar al menos un criterio (rol o emailDomain)");
+            }
+            long afterId = 0;
+            List<UserKey> keys;
+            do {
+                keys = userRepository.findKeysByFilter(afterId, rolId, emailPattern, Limit.of(bulkChunkSize));
+                if (keys.isEmpty()) {
+                    break;
+                }
+                afterId = keys.getLast().getId();
+                matched += keys.size();
+                affected += applyChunk(keys, skipRolId, statement);
+            } while (keys.size() == bulkChunkSize);
+        }
+
+        return BulkOperationResponseDTO.builder()
+                .matched(matched)
+                .affected(affected)
+                .build();
+    }
+
+    private int applyChunk(List<UserKey> keys, Long skipRolId, ToIntFunction<List<Long>> statement) {
+        List<UserKey> targets = keys.stream()
+                .filter(key -> skipRolId == null || !Objects.equals(key.getRolId(), skipRolId))
+                .toList();
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        invalidateSecurity(targets.stream().map(UserKey::getEmail).toList());
+        return statement.applyAsInt(targets.stream().map(UserKey::getId).toList());
+    }
+
+    /**
+     * Guarda la epoca de seguridad nueva de estos usuarios en la transaccion del cambio y, tras el commit,
+     * la aplica en este nodo (los demas la leen en su siguiente sondeo) y los saca de la cache de UserDetails.
+     * Tambien se sacan de la cache ya: hasta el commit otra peticion que se autentique lee la fila antigua
+     * (rol anterior, usuario aun sin borrar) y la volveria a cachear durante todo el expireAfterWrite.
+     * Los tokens emitidos mientras tanto llevan la epoca anterior y quedan invalidados al aplicarla.
+     */
+    private void invalidateSecurity(List<String> emails) {
+        Map<String, Long> epochs = securityEpochRegistry.record(emails);
+        emails.forEach(customUserDetailsService::evict);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyInvalidation(epochs, emails);
+                }
+            });
+        } else {
+            applyInvalidation(epochs, emails);
+        }
+    }
+
+    private void applyInvalidation(Map<String, Long> epochs, List<String> emails) {
+        securityEpochRegistry.apply(epochs);
+        emails.forEach(customUserDetailsService::evict);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * String del rol ("admin", "ROLE_USER"...) a enum Erol.
+     */
+    static Erol parseRol(String rol) {
+        try {
+            String roleName = rol.toUpperCase();
+            if (!roleName.startsWith("ROLE_")) {
+                roleName = "ROLE_" + roleName;
+            }
+            return Erol.valueOf(roleName);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Rol inválido. Los roles permitidos son: ADMIN o USER");
+        }
     }
 }
@@ -0,0 +1,10 @@
+-- email_normalized = lower(email), calculada por la BD: las busquedas por email (login, alta, filtro JWT)
+-- no distinguen mayusculas y van por un indice unico. email conserva el valor tal como se escribio.
+alter table users add column email_normalized varchar(255) generated always as (lower(email));
+create unique index ux_users_email_normalized on users (email_normalized);
+
+-- Login con Google por google_id (admite varios NULL: cuentas sin Google)
+create unique index if not exists ux_users_google_id on users (google_id);
+
+-- Listado por cursor ordenado por username: seek sobre (username, id)
+create index if not exists idx_users_username_id on users (username, id);
@@ -0,0 +1,11 @@
+-- Epocas de seguridad por usuario (SecurityEpochRegistry): un cambio de rol/email o un borrado guarda aqui
+-- la nueva epoca (timestamp en ms) en la misma transaccion y cada nodo la lee en su siguiente sondeo.
+-- Clave por email (subject del JWT) para que sobreviva al borrado del usuario; la fila sobra pasado
+-- jwt.expiration desde el cambio y se purga periodicamente.
+create table security_epochs (
+    email varchar(255) not null primary key,
+    epoch bigint       not null
+);
+
+-- Carga inicial, sondeo incremental y purga (epoch > ? / epoch < ?)
+create index idx_security_epochs_epoch on security_epochs (epoch);
@@ -0,0 +1,19 @@
+-- Esquema de partida: el que generaba Hibernate (ddl-auto=update) antes de pasar a migraciones.
+-- Las bases de datos que ya lo tienen se marcan como version 1 sin ejecutarlo (spring.flyway.baseline-on-migrate).
+create table roles (
+    id  bigint not null auto_increment primary key,
+    rol enum ('ROLE_ADMIN', 'ROLE_USER')
+) engine = InnoDB;
+
+create table users (
+    id        bigint not null auto_increment primary key,
+    username  varchar(255),
+    email     varchar(255),
+    password  varchar(255),
+    google_id varchar(255),
+    rol_id    bigint not null,
+    constraint fk_users_rol foreign key (rol_id) references roles (id)
+) engine = InnoDB;
+
+-- Roles estaticos (Erol); RoleRegistry los carga al arrancar
+insert into roles (id, rol) values (1, 'ROLE_ADMIN'), (2, 'ROLE_USER');
@@ -0,0 +1,9 @@
+-- Ids de users desde users_seq (User: allocationSize = 50, optimizador pooled) para poder agrupar los
+-- INSERTs en batches JDBC. MySQL no tiene secuencias: Hibernate usa una tabla de una fila (next_val).
+-- Cada llamada reserva [valor - 49, valor], asi que continua en max(id) + 50 para no repetir ids existentes.
+create table if not exists users_seq (
+    next_val bigint
+) engine = InnoDB;
+
+delete from users_seq;
+insert into users_seq (next_val) select coalesce(max(id), 0) + 50 from users;
@@ -0,0 +1,3 @@
+-- Listado por cursor ordenado por email: seek sobre (email, id), como (username, id) en V3.
+-- email no es unico (solo email_normalized lo es) y sin este indice cada pagina recorria y ordenaba la tabla
+create index idx_users_email_id on users (email, id);
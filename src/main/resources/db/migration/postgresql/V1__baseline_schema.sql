@@ -0,0 +1,20 @@
+-- Esquema de partida: el que generaba Hibernate (ddl-auto=update) antes de pasar a migraciones.
+-- Las bases de datos que ya lo tienen se marcan como version 1 sin ejecutarlo (spring.flyway.baseline-on-migrate).
+create table roles (
+    id  bigint generated by default as identity primary key,
+    rol varchar(255) check (rol in ('ROLE_ADMIN', 'ROLE_USER'))
+);
+
+create table users (
+    id        bigint generated by default as identity primary key,
+    username  varchar(255),
+    email     varchar(255),
+    password  varchar(255),
+    google_id varchar(255),
+    rol_id    bigint not null,
+    constraint fk_users_rol foreign key (rol_id) references roles (id)
+);
+
+-- Roles estaticos (Erol); RoleRegistry los carga al arrancar
+insert into roles (id, rol) values (1, 'ROLE_ADMIN'), (2, 'ROLE_USER');
+select setval(pg_get_serial_sequence('roles', 'id'), 2);
@@ -0,0 +1,6 @@
+-- Ids de users desde la secuencia users_seq (User: allocationSize = 50, optimizador pooled) para poder
+-- agrupar los INSERTs en batches JDBC. Cada llamada reserva [valor - 49, valor], asi que la secuencia
+-- continua en max(id) + 50 para no repetir ids existentes.
+create sequence if not exists users_seq start with 1 increment by 50;
+alter sequence users_seq increment by 50;
+select setval('users_seq', (select coalesce(max(id), 0) + 50 from users), false);
@@ -0,0 +1,11 @@
+-- Tokens revocados antes de caducar (logout, token filtrado), por jti. Cada nodo los replica en memoria
+-- (TokenRevocationList); la fila sobra en cuanto pasa expires_at y se purga periodicamente.
+create table revoked_tokens (
+    jti        varchar(64) not null primary key,
+    expires_at timestamp(6) with time zone not null,
+    revoked_at timestamp(6) with time zone not null
+);
+
+-- Sondeo incremental de los nodos (revoked_at > ?) y purga de caducados (expires_at < ?)
+create index idx_revoked_tokens_revoked_at on revoked_tokens (revoked_at);
+create index idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
@@ -0,0 +1,4 @@
+-- Version de la fila para bloqueo optimista (User.version) y ETags de la API de usuarios.
+-- Hibernate la incrementa en cada UPDATE de la entidad; las sentencias masivas la suben a mano.
+-- Las filas existentes y los INSERT por JDBC empiezan en 0.
+alter table users add column version bigint not null default 0;
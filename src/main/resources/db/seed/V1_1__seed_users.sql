@@ -1,7 +1,5 @@
-INSERT INTO roles (id, rol) VALUES
-  (1, 'ROLE_ADMIN'),
-  (2, 'ROLE_USER');
-
+-- Usuarios de ejemplo, solo en desarrollo y tests (spring.flyway.locations incluye db/seed en esos perfiles).
+-- Va antes de V2 para que users_seq continue despues de estos ids.
 INSERT INTO users (id, email, password, username, rol_id) VALUES
   (1, 'admin1@example.com', '$2a$10$06hYq/zTZnn59LnRA5IXPeGWdR79kVeB8RX8qMI8ZTugL//IIGdZu', 'admin1', 1),
   (2, 'admin2@example.com', '$2a$10$06hYq/zTZnn59LnRA5IXPeGWdR79kVeB8RX8qMI8ZTugL//IIGdZu', 'admin2', 1),
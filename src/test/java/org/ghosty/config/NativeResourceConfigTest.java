@@ -0,0 +1,42 @@
+package org.ghosty.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La imagen nativa solo lleva los recursos de resource-config.json (las pistas de Spring Boot para Flyway
+ * cubren db/migration/*, no los subdirectorios por motor ni db/seed): todas las migraciones deben entrar.
+ */
+class NativeResourceConfigTest {
+
+    private static final String RESOURCE_CONFIG = "META-INF/native-image/org.ghosty/ghosty-backend/resource-config.json";
+
+    @Test
+    void includesEveryFlywayScript() throws Exception {
+        List<Pattern> includes = new ArrayList<>();
+        try (InputStream in = new ClassPathResource(RESOURCE_CONFIG).getInputStream()) {
+            for (JsonNode include : new ObjectMapper().readTree(in).path("resources").path("includes")) {
+                includes.add(Pattern.compile(include.path("pattern").asText()));
+            }
+        }
+
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath*:db/**/*.sql");
+        assertThat(scripts).hasSizeGreaterThan(3);
+        for (Resource script : scripts) {
+            String url = script.getURL().toString();
+            String path = url.substring(url.lastIndexOf("/db/") + 1);
+            assertThat(includes).as(path).anyMatch(pattern -> pattern.matcher(path).matches());
+        }
+    }
+}
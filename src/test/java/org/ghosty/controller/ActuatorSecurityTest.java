@@ -0,0 +1,55 @@
+package org.ghosty.controller;
+
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints de actuator: health sin token, metrics y caches solo para administradores.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void metricsAndCachesRequireAdmin() throws Exception {
+        String user = bearer("user1@example.com");
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, user)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/caches").header(HttpHeaders.AUTHORIZATION, user)).andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/caches").header(HttpHeaders.AUTHORIZATION, user)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+
+        String admin = bearer("admin1@example.com");
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/caches").header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+    }
+
+    private String bearer(String email) {
+        return "Bearer " + jwtService.generateToken(customUserDetailsService.loadUserByUsername(email));
+    }
+}
@@ -0,0 +1,126 @@
+package org.ghosty.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.ghosty.security.PasswordHashingExecutor;
+import org.ghosty.support.GoogleStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pool de BCrypt con un hilo y un hueco de cola: saturado, el login responde 503 al momento; el login
+ * con Google (sin BCrypt) no pasa por el pool y sigue funcionando.
+ */
+@SpringBootTest(properties = {
+        "security.password-hashing.threads=1",
+        "security.password-hashing.queue-capacity=1",
+        "google.auth.verification=tokeninfo"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthHashingPoolTest {
+
+    private static final GoogleStubServer GOOGLE = startStub();
+    private static final String LOGIN = "{\"email\":\"user1@example.com\",\"password\":\"password\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void googleStub(DynamicPropertyRegistry registry) {
+        registry.add("google.auth.tokeninfo-uri", GOOGLE::tokenInfoUri);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        GOOGLE.close();
+    }
+
+    @Test
+    void saturatedPoolRejectsLoginButNotGoogle() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // Una tarea en el hilo del pool y otra en la cola
+        CompletableFuture<?> running = CompletableFuture.runAsync(() -> passwordHashingExecutor.call(() -> await(release)));
+        CompletableFuture<?> queued = CompletableFuture.runAsync(() -> passwordHashingExecutor.call(() -> await(release)));
+        try {
+            waitUntilSaturated();
+
+            postJson("/v1/api/auth/login", LOGIN)
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.status").value(503));
+            assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isPositive();
+
+            String idToken = GOOGLE.issueIdToken("test-client-id", "google-pool", "pool@example.com", "Pool");
+            postJson("/v1/api/auth/google", "{\"token\":\"" + idToken + "\"}")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.email").value("pool@example.com"));
+        } finally {
+            release.countDown();
+            CompletableFuture.allOf(running, queued).get(5, TimeUnit.SECONDS);
+        }
+
+        postJson("/v1/api/auth/login", LOGIN)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+    }
+
+    private ResultActions postJson(String path, String body) throws Exception {
+        return mockMvc.perform(post(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private void waitUntilSaturated() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("password.hashing.active").gauge().value() < 1
+                || meterRegistry.get("password.hashing.queue.size").gauge().value() < 1) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static GoogleStubServer startStub() {
+        try {
+            return new GoogleStubServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.ghosty.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pagina compacta de usuarios y respuestas CBOR/Smile negociadas por Accept.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BinaryFormatsTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    void userPageIsCompactJsonByDefault() throws Exception {
+        mockMvc.perform(get("/v1/api/users?page=0&size=2").header("Authorization", "Bearer " + adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.number").value(0))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.totalElements").isNumber())
+                .andExpect(jsonPath("$.totalPages").isNumber())
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.sort").doesNotExist());
+    }
+
+    @Test
+    void userPageInCbor() throws Exception {
+        byte[] body = mockMvc.perform(get("/v1/api/users?page=0&size=2")
+                        .header("Authorization", "Bearer " + adminToken())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(page.get("content")).hasSize(2);
+        assertThat(page.get("content").get(0).get("email").asText()).contains("@");
+        assertThat(page.get("totalElements").asLong()).isPositive();
+    }
+
+    @Test
+    void loginInSmile() throws Exception {
+        byte[] body = mockMvc.perform(post("/v1/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(SMILE)
+                        .content("{\"email\":\"user1@example.com\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode auth = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(auth.get("email").asText()).isEqualTo("user1@example.com");
+        assertThat(auth.get("token").asText()).isNotBlank();
+    }
+
+    private String adminToken() {
+        return jwtService.generateToken(customUserDetailsService.loadUserByUsername("admin1@example.com"));
+    }
+}
@@ -0,0 +1,85 @@
+package org.ghosty.controller;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Metricas de cada fase de la autenticacion, del filtro JWT, de Hikari y de Tomcat
+ * publicadas en /actuator/prometheus, accesible sin token.
+ * Los tests de Spring Boot no exportan metricas salvo con {@link AutoConfigureObservability}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class PrometheusEndpointTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void exposesAuthPipelineMetricsWithoutAuthentication() throws Exception {
+        HttpResponse<String> login = send(HttpRequest.newBuilder(uri("/v1/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"user1@example.com\",\"password\":\"password\"}")));
+        assertThat(login.statusCode()).isEqualTo(200);
+        String token = login.body().replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+
+        send(HttpRequest.newBuilder(uri("/v1/api/roles")).header("Authorization", "Bearer " + token).GET());
+        send(HttpRequest.newBuilder(uri("/v1/api/roles")).header("Authorization", "Bearer " + expiredToken()).GET());
+        send(HttpRequest.newBuilder(uri("/v1/api/roles")).header("Authorization", "Bearer basura").GET());
+        send(HttpRequest.newBuilder(uri("/v1/api/roles")).GET());
+
+        HttpResponse<String> scrape = send(HttpRequest.newBuilder(uri("/actuator/prometheus")).GET());
+
+        assertThat(scrape.statusCode()).isEqualTo(200);
+        assertThat(scrape.body())
+                .contains("auth_flow_duration_seconds_bucket{exception=\"none\",flow=\"login\",outcome=\"success\"")
+                .contains("password_hashing_duration_seconds_bucket{operation=\"matches\"")
+                .contains("user_details_load_duration_seconds_count{cache=\"miss\"}")
+                .contains("jwt_verify_duration_seconds_bucket")
+                .contains("jwt_filter_requests_total{outcome=\"authenticated\"}")
+                .contains("jwt_filter_requests_total{outcome=\"expired\"}")
+                .contains("jwt_filter_requests_total{outcome=\"invalid\"}")
+                .contains("jwt_filter_requests_total{outcome=\"no_header\"}")
+                .contains("hikaricp_connections_active")
+                .contains("tomcat_threads_busy_threads");
+    }
+
+    private String expiredToken() {
+        return Jwts.builder()
+                .setSubject("user1@example.com")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,96 @@
+package org.ghosty.controller;
+
+import org.ghosty.enums.Erol;
+import org.ghosty.model.Rol;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.ghosty.security.RoleRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Recarga del registro de roles: solo administradores y, tras ella, las busquedas usan las filas nuevas de {@code roles}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RoleRefreshTest {
+
+    private static final long MOVED_USER_ROLE_ID = 30L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        // Deja ROLE_USER otra vez con id 2 (el contexto y su BD se comparten con otros tests)
+        if (jdbcTemplate.queryForObject("select count(*) from roles where id = 2", Long.class) == 0) {
+            moveUserRole(MOVED_USER_ROLE_ID, 2L);
+        }
+        roleRegistry.refresh();
+    }
+
+    @Test
+    void refreshRequiresAdmin() throws Exception {
+        mockMvc.perform(post("/v1/api/roles/refresh")).andExpect(status().isForbidden());
+        mockMvc.perform(post("/v1/api/roles/refresh").header(HttpHeaders.AUTHORIZATION, bearer("user1@example.com")))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/v1/api/roles/refresh").header(HttpHeaders.AUTHORIZATION, bearer("admin1@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"roles\":2}"));
+    }
+
+    @Test
+    void lookupsUseNewRowsAfterRefresh() throws Exception {
+        String admin = bearer("admin1@example.com");
+        moveUserRole(2L, MOVED_USER_ROLE_ID);
+
+        // Hasta la recarga sigue la copia en memoria
+        assertThat(roleRegistry.reference(Erol.ROLE_USER).getId()).isEqualTo(2L);
+
+        mockMvc.perform(post("/v1/api/roles/refresh").header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"roles\":2}"));
+
+        assertThat(roleRegistry.reference(Erol.ROLE_USER).getId()).isEqualTo(MOVED_USER_ROLE_ID);
+        assertThat(roleRegistry.reference(Erol.ROLE_ADMIN).getId()).isEqualTo(1L);
+        Rol moved = Rol.builder().id(MOVED_USER_ROLE_ID).build();
+        assertThat(roleRegistry.roleOf(moved)).isEqualTo(Erol.ROLE_USER);
+        assertThat(roleRegistry.authorities(moved)).extracting(Object::toString).containsExactly("ROLE_USER");
+    }
+
+    private void moveUserRole(long from, long to) {
+        jdbcTemplate.update("insert into roles (id, rol) values (?, 'ROLE_USER')", to);
+        jdbcTemplate.update("update users set rol_id = ? where rol_id = ?", to, from);
+        jdbcTemplate.update("delete from roles where id = ?", from);
+    }
+
+    private String bearer(String email) {
+        return "Bearer " + jwtService.generateToken(customUserDetailsService.loadUserByUsername(email));
+    }
+}
@@ -0,0 +1,176 @@
+package org.ghosty.controller;
+
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETags de la API de usuarios: 304 con If-None-Match, actualizacion condicionada por If-Match y un ETag
+ * distinto por formato negociado (JSON, CBOR, Smile) con {@code Vary: Accept}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserETagTest {
+
+    private static final long ID = 990_001;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final String UPDATE = "{\"username\":\"etag-cambiado\",\"email\":\"etag1@etag.example.com\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("insert into users (id, username, email, password, rol_id) values (?, ?, ?, 'x', 2)",
+                    ID + i - 1, "etag" + i, "etag" + i + "@etag.example.com");
+        }
+        token = "Bearer " + jwtService.generateToken(customUserDetailsService.loadUserByUsername("admin1@example.com"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where email like 'etag%@etag.example.com'");
+    }
+
+    @Test
+    void userNotModifiedUntilUpdated() throws Exception {
+        String etag = mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ID + "-0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(put("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(UPDATE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ID + "-1\""));
+
+        mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ID + "-1\""));
+    }
+
+    @Test
+    void updateWithStaleIfMatchFails() throws Exception {
+        jdbcTemplate.update("update users set version = 3 where id = ?", ID);
+
+        mockMvc.perform(put("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, "\"" + ID + "-2\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(UPDATE))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, "W/\"" + ID + "-3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(UPDATE))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(jdbcTemplate.queryForObject("select username from users where id = ?", String.class, ID))
+                .isEqualTo("etag1");
+    }
+
+    @Test
+    void pageNotModifiedUntilOneOfItsRowsChanges() throws Exception {
+        jdbcTemplate.update("update users set version = 5 where id = ?", ID + 2);
+        String page = "/v1/api/users?page=0&size=3&sort=id,desc";
+        MvcResult first = mockMvc.perform(get(page).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(first.getResponse().getHeaders(HttpHeaders.ETAG)).hasSize(1);
+
+        mockMvc.perform(get(page).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Cambia una fila con version menor que la maxima: no cambian ni el maximo ni el numero de filas
+        jdbcTemplate.update("update users set version = 1, username = 'etag-cambiado' where id = ?", ID);
+        String changed = mockMvc.perform(get(page).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    void eachNegotiatedFormatHasItsOwnETag() throws Exception {
+        String json = mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ID + "-0-cbor\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ID + "-0-smile\""));
+
+        // El ETag JSON no vale para la representacion CBOR (ni al reves)
+        mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+
+        String page = "/v1/api/users?page=0&size=3&sort=id,desc";
+        String jsonPage = mockMvc.perform(get(page).header(HttpHeaders.AUTHORIZATION, token))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(page).header(HttpHeaders.AUTHORIZATION, token)
+                        .accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonPage))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andExpect(header().string(HttpHeaders.ETAG, not(jsonPage)));
+
+        // If-Match acepta el ETag de cualquier formato de la version actual
+        mockMvc.perform(put("/v1/api/users/" + ID).header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, cbor)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .contentType(MediaType.APPLICATION_JSON).content(UPDATE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ID + "-1-cbor\""));
+    }
+}
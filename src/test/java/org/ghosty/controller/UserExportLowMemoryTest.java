@@ -0,0 +1,114 @@
+package org.ghosty.controller;
+
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exporta una tabla de usuarios mucho mayor que el heap (surefire lo lanza con -Xmx128m):
+ * si la exportacion acumulase filas o el cuerpo de la respuesta, fallaria con OutOfMemoryError.
+ * La BD es H2 en fichero para que los datos no ocupen heap; se conserva entre ejecuciones (migraciones
+ * ya aplicadas), asi que solo se rellena la primera vez.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-test/ghosty;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+@ActiveProfiles("test")
+class UserExportLowMemoryTest {
+
+    private static final int SEEDED_USERS = 30;
+    private static final int EXTRA_USERS = 1_000_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        Long users = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+        if (users == SEEDED_USERS) {
+            jdbcTemplate.update("insert into users (id, username, email, password, rol_id) "
+                    + "select next value for users_seq, concat('export', r.n), concat('export', r.n, '@example.com'), 'x', 2 "
+                    + "from system_range(1, ?) as r(n)", EXTRA_USERS);
+        }
+        adminToken = jwtService.generateToken(customUserDetailsService.loadUserByUsername("admin1@example.com"));
+    }
+
+    @Test
+    void exportsWholeTableAsNdjson() throws Exception {
+        HttpResponse<InputStream> response = export("ndjson");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValue("application/x-ndjson");
+        long lines = 0;
+        String first = null;
+        String last = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (first == null) {
+                    first = line;
+                }
+                last = line;
+                lines++;
+            }
+        }
+        assertThat(lines).isEqualTo(SEEDED_USERS + EXTRA_USERS);
+        assertThat(first).isEqualTo("{\"id\":1,\"username\":\"admin1\",\"email\":\"admin1@example.com\",\"rol\":\"ROLE_ADMIN\"}");
+        assertThat(last).contains("\"email\":\"export" + EXTRA_USERS + "@example.com\"");
+    }
+
+    @Test
+    void exportsWholeTableAsCsv() throws Exception {
+        HttpResponse<InputStream> response = export("csv");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        long lines = 0;
+        String header = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            header = reader.readLine();
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        assertThat(header).isEqualTo("id,username,email,rol");
+        assertThat(lines).isEqualTo(SEEDED_USERS + EXTRA_USERS);
+    }
+
+    private HttpResponse<InputStream> export(String format) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/api/users/export?format=" + format))
+                .header("Authorization", "Bearer " + adminToken)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+}
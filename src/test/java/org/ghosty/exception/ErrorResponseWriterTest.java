@@ -0,0 +1,79 @@
+package org.ghosty.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.ghosty.dto.response.ErrorResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Las plantillas producen el mismo JSON que serializar {@link ErrorResponseDTO} con Jackson.
+ */
+class ErrorResponseWriterTest {
+
+    // Como el ObjectMapper de Spring Boot: fechas ISO, no timestamps numericos
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ErrorResponseWriter writer = new ErrorResponseWriter(objectMapper);
+
+    @Test
+    void fixedTemplateMatchesJacksonOutput() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.write(response, writer.fixed(HttpStatus.FORBIDDEN, "Acceso denegado. No tienes permisos"), "/v1/api/users/7");
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        assertSameAsJackson(response.getContentAsByteArray(), ErrorResponseDTO.builder()
+                .status(403)
+                .error("Forbidden")
+                .message("Acceso denegado. No tienes permisos")
+                .path("/v1/api/users/7")
+                .build());
+    }
+
+    @Test
+    void dynamicTemplateEscapesMessageAndPath() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String message = "Usuario \"ñandú\" no encontrado\n\\ tab\t";
+
+        writer.write(response, writer.dynamic(HttpStatus.NOT_FOUND), message, "/v1/api/users/\"x\"");
+
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertSameAsJackson(response.getContentAsByteArray(), ErrorResponseDTO.builder()
+                .status(404)
+                .error("Not Found")
+                .message(message)
+                .path("/v1/api/users/\"x\"")
+                .build());
+    }
+
+    @Test
+    void renderBuildsTheSameBody() throws Exception {
+        ErrorResponseWriter.Template template = writer.fixed(HttpStatus.TOO_MANY_REQUESTS, "Demasiados intentos");
+
+        assertSameAsJackson(writer.render(template, "/v1/api/auth/login"), ErrorResponseDTO.builder()
+                .status(429)
+                .error("Too Many Requests")
+                .message("Demasiados intentos")
+                .path("/v1/api/auth/login")
+                .build());
+    }
+
+    private void assertSameAsJackson(byte[] body, ErrorResponseDTO expected) throws Exception {
+        JsonNode actual = objectMapper.readTree(body);
+        LocalDateTime timestamp = LocalDateTime.parse(actual.get("timestamp").asText());
+        expected.setTimestamp(timestamp);
+        assertThat(new String(body, StandardCharsets.UTF_8))
+                .isEqualTo(objectMapper.writeValueAsString(expected));
+    }
+}
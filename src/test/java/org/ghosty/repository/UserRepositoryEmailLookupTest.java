@@ -0,0 +1,70 @@
+package org.ghosty.repository;
+
+import org.ghosty.model.User;
+import org.ghosty.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Busquedas por email sobre {@code email_normalized} (migracion V3): sin distinguir mayusculas,
+ * con unicidad sobre el email normalizado y resueltas por indice, no recorriendo la tabla.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class UserRepositoryEmailLookupTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        sqlStatementCounter.reset();
+    }
+
+    @Test
+    void findsByEmailIgnoringCaseInOneSelect() {
+        assertThat(userRepository.findByEmail("Admin1@EXAMPLE.com"))
+                .hasValueSatisfying(user -> {
+                    assertThat(user.getId()).isEqualTo(1L);
+                    assertThat(user.getEmail()).isEqualTo("admin1@example.com");
+                    assertThat(user.getRol().getRol()).isNotNull();
+                });
+        assertThat(sqlStatementCounter.count()).isEqualTo(1);
+        assertThat(userRepository.existsByEmail("USER1@example.com")).isTrue();
+    }
+
+    @Test
+    void rejectsEmailThatOnlyDiffersInCase() {
+        assertThatThrownBy(() -> jdbcTemplate.update("insert into users (id, username, email, password, rol_id) "
+                + "values (next value for users_seq, 'duplicado', 'User2@Example.com', 'x', 2)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void lookupsUseIndexes() {
+        assertThat(plan("select id from users where email_normalized = lower('X@example.com')"))
+                .contains("ux_users_email_normalized");
+        assertThat(plan("select id from users where google_id = 'google-1'"))
+                .contains("ux_users_google_id");
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
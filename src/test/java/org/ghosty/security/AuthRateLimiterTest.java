@@ -0,0 +1,80 @@
+package org.ghosty.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Limite de intentos de login/registro con los valores por defecto: 5 seguidos por email
+ * (5 mas por minuto) y 20 por IP.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void limitsAttemptsPerEmailAcrossIpsAndRefills() {
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat(authRateLimiter.acquire("10.0.0." + i, "Victima@Example.com", now)).isZero();
+        }
+
+        assertThat(authRateLimiter.acquire("10.0.0.99", "victima@example.com", now)).isEqualTo(12);
+        assertThat(authRateLimiter.acquire("10.0.0.99", "victima@example.com", now + 12 * SECOND)).isZero();
+    }
+
+    @Test
+    void limitsAttemptsPerIpAcrossEmails() {
+        long now = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            assertThat(authRateLimiter.acquire("10.1.0.1", "cliente" + i + "@example.com", now)).isZero();
+        }
+
+        assertThat(authRateLimiter.acquire("10.1.0.1", "otro@example.com", now)).isEqualTo(3);
+        assertThat(authRateLimiter.acquire("10.1.0.2", "otro@example.com", now)).isZero();
+    }
+
+    @Test
+    void answersPreSerialized429WithoutReachingBcrypt() throws Exception {
+        String body = "{\"email\":\"limitado@example.com\",\"password\":\"incorrecta\"}";
+        for (int i = 0; i < 5; i++) {
+            login(body).andExpect(status().isUnauthorized());
+        }
+
+        login(body)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.error").value("Too Many Requests"))
+                .andExpect(jsonPath("$.path").value("/v1/api/auth/login"))
+                .andExpect(jsonPath("$.timestamp").isNotEmpty());
+    }
+
+    private ResultActions login(String body) throws Exception {
+        return mockMvc.perform(post("/v1/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+}
@@ -0,0 +1,67 @@
+package org.ghosty.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prevalidacion de tokens Bearer: solo descarta lo que JJWT rechazaria seguro.
+ */
+class BearerTokenPrecheckTest {
+
+    private static final String SECRET = "YBTcibqVZ8jf4wFa3VoHikCjkgLCBMFvVns5tpfoJlC+xngisb2DXrwhti28fwq+nDBqRuM+9VuPVJVVwCbuPw==";
+
+    private final JwtCodec codec = new JwtCodec(SECRET);
+
+    @Test
+    void letsSignedUnexpiredTokensThrough() {
+        long now = System.currentTimeMillis();
+        String token = codec.sign(Map.of("roles", List.of("ROLE_USER")), "jti", "user1@example.com", now, now + 60_000);
+
+        assertThat(BearerTokenPrecheck.check(token, now)).isEqualTo(BearerTokenPrecheck.Result.PLAUSIBLE);
+        // exp se compara como JJWT: caducado solo despues del segundo de exp
+        assertThat(BearerTokenPrecheck.check(token, (now + 60_000) / 1000 * 1000)).isEqualTo(BearerTokenPrecheck.Result.PLAUSIBLE);
+    }
+
+    @Test
+    void rejectsExpiredTokensFromPayloadScan() {
+        long now = System.currentTimeMillis();
+        String token = codec.sign(Map.of(), "jti", "user1@example.com", now - 120_000, now - 60_000);
+
+        assertThat(BearerTokenPrecheck.check(token, now)).isEqualTo(BearerTokenPrecheck.Result.EXPIRED);
+    }
+
+    @Test
+    void leavesTokensWithoutExpToJjwt() {
+        String token = Jwts.builder().setSubject("user1@example.com").setIssuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(BearerTokenPrecheck.check(token, System.currentTimeMillis())).isEqualTo(BearerTokenPrecheck.Result.PLAUSIBLE);
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        long now = System.currentTimeMillis();
+        String token = codec.sign(Map.of(), "jti", "user1@example.com", now, now + 60_000);
+        String[] parts = token.split("\\.");
+
+        assertThat(BearerTokenPrecheck.check("", now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check("basura", now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check(token + ".extra", now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check(parts[0] + "." + parts[1] + ".", now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check(parts[0] + ".." + parts[2], now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check(parts[0] + "." + parts[1] + "=." + parts[2], now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check(parts[0] + "." + parts[1] + "." + parts[2] + "AA", now)).isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+        assertThat(BearerTokenPrecheck.check(parts[0] + "." + "A".repeat(BearerTokenPrecheck.MAX_LENGTH) + "." + parts[2], now))
+                .isEqualTo(BearerTokenPrecheck.Result.MALFORMED);
+    }
+}
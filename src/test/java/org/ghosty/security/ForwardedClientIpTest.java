@@ -0,0 +1,73 @@
+package org.ghosty.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IP del cliente detras del proxy con la configuracion de produccion (RemoteIpValve de Tomcat): el limite
+ * por IP usa la IP que añade el proxy, no la parte de X-Forwarded-For que escribe el cliente.
+ * Aqui el proxy de confianza es la propia maquina del test (loopback).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.forward-headers-strategy=native",
+        "server.tomcat.remoteip.internal-proxies=127\\.0\\.0\\.1|0:0:0:0:0:0:0:1",
+        "server.tomcat.remoteip.remote-ip-header=X-Forwarded-For",
+        // Sin recarga apreciable mientras dura el test (cada intento pasa por BCrypt)
+        "auth.rate-limit.ip.refill-per-minute=1"
+})
+@ActiveProfiles("test")
+class ForwardedClientIpTest {
+
+    private static final String CLIENT = "198.51.100.7";
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void spoofedForwardedForDoesNotResetIpBucket() throws Exception {
+        // Capacidad por IP: 20. Cada intento con otro email (sin limite por email) y otra IP falsa a la izquierda
+        for (int i = 0; i < 20; i++) {
+            assertThat(login("203.0.113." + i + ", " + CLIENT, "ip" + i + "@example.com")).isEqualTo(401);
+        }
+
+        assertThat(login("203.0.113.99, " + CLIENT, "ip99@example.com")).isEqualTo(429);
+        assertThat(login("203.0.113.100", "ip100@example.com")).isEqualTo(401);
+    }
+
+    @Test
+    void productionTrustsOnlyInternalProxies() throws Exception {
+        Properties prod = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-prod.properties"));
+        Pattern internalProxies = Pattern.compile(new StandardEnvironment()
+                .resolvePlaceholders(prod.getProperty("server.tomcat.remoteip.internal-proxies")));
+
+        assertThat(prod.getProperty("server.forward-headers-strategy")).isEqualTo("native");
+        assertThat(internalProxies.matcher("10.12.3.4").matches()).isTrue();
+        assertThat(internalProxies.matcher("203.0.113.5").matches()).isFalse();
+    }
+
+    // X-Forwarded-For tal como llega del proxy: lo que mando el cliente y, al final, la IP que vio el proxy
+    private int login(String forwardedFor, String email) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"incorrecta\"}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+}
@@ -0,0 +1,164 @@
+package org.ghosty.security;
+
+import org.ghosty.repository.SecurityEpochRepository;
+import org.ghosty.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Epocas de seguridad persistidas: un cambio invalida los tokens anteriores en este nodo tras el commit,
+ * en los demas nodos tras su sondeo y en un nodo recien arrancado desde la carga inicial.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SecurityEpochTest {
+
+    private static final long USER_ID = 970001L;
+    private static final String EMAIL = "epoca@epoca.example.com";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SecurityEpochRegistry securityEpochRegistry;
+
+    @Autowired
+    private SecurityEpochRepository securityEpochRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (id, username, email, password, rol_id) values (?, 'epoca', ?, 'x', 2)",
+                USER_ID, EMAIL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where id = ?", USER_ID);
+        jdbcTemplate.update("delete from security_epochs where email like '%@epoca.example.com'");
+    }
+
+    @Test
+    void bumpRejectsEarlierTokensAndIsPersisted() {
+        String token = jwtService.generateToken(customUserDetailsService.loadUserByUsername(EMAIL));
+        assertThat(jwtService.extractUserDetails(token)).isPresent();
+
+        userService.deleteUser(USER_ID);
+
+        assertThat(jwtService.extractUserDetails(token)).isEmpty();
+        assertThat(securityEpochRepository.findById(EMAIL))
+                .hasValueSatisfying(row -> assertThat(row.getEpoch()).isEqualTo(securityEpochRegistry.currentEpoch(EMAIL)));
+    }
+
+    @Test
+    void rolledBackChangeDoesNotInvalidate() {
+        String token = jwtService.generateToken(customUserDetailsService.loadUserByUsername(EMAIL));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.deleteUser(USER_ID);
+            status.setRollbackOnly();
+        });
+
+        assertThat(jwtService.extractUserDetails(token)).isPresent();
+        assertThat(securityEpochRepository.findById(EMAIL)).isEmpty();
+    }
+
+    @Test
+    void concurrentChangesOfTheSameUserBothCommit() throws Exception {
+        CountDownLatch firstRecorded = new CountDownLatch(1);
+
+        // La primera transaccion inserta la fila y tarda en confirmar; la segunda la escribe mientras tanto
+        CompletableFuture<Map<String, Long>> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Map<String, Long> epochs = securityEpochRegistry.record(List.of(EMAIL));
+            firstRecorded.countDown();
+            sleep(300);
+            return epochs;
+        }));
+        assertThat(firstRecorded.await(5, TimeUnit.SECONDS)).isTrue();
+        Map<String, Long> second = transactionTemplate.execute(status -> securityEpochRegistry.record(List.of(EMAIL)));
+
+        long stored = securityEpochRepository.findById(EMAIL).orElseThrow().getEpoch();
+        assertThat(stored).isEqualTo(Math.max(first.get(5, TimeUnit.SECONDS).get(EMAIL), second.get(EMAIL)));
+    }
+
+    @Test
+    void restartedNodeLoadsEpochsFromDatabase() {
+        long tokenEpoch = securityEpochRegistry.currentEpoch(EMAIL);
+        userService.deleteUser(USER_ID);
+
+        SecurityEpochRegistry restarted = newRegistry();
+        restarted.poll();
+
+        assertThat(restarted.isCurrent(EMAIL, tokenEpoch)).isFalse();
+        assertThat(restarted.currentEpoch(EMAIL)).isEqualTo(securityEpochRegistry.currentEpoch(EMAIL));
+    }
+
+    @Test
+    void picksUpEpochsFromOtherNodesOnPoll() {
+        String token = jwtService.generateToken(customUserDetailsService.loadUserByUsername(EMAIL));
+        securityEpochRegistry.poll();
+
+        // Cambio hecho en otro nodo: solo la fila en la BD
+        jdbcTemplate.update("insert into security_epochs (email, epoch) values (?, ?)", EMAIL, System.currentTimeMillis() + 1);
+        assertThat(jwtService.extractUserDetails(token)).isPresent();
+
+        securityEpochRegistry.poll();
+
+        assertThat(jwtService.extractUserDetails(token)).isEmpty();
+    }
+
+    @Test
+    void initialLoadSkipsEpochsOlderThanTokenLifetime() {
+        long expiration = (long) ReflectionTestUtils.getField(securityEpochRegistry, "expiration");
+        jdbcTemplate.batchUpdate("insert into security_epochs (email, epoch) values (?, ?)", List.of(
+                new Object[]{"antigua@epoca.example.com", System.currentTimeMillis() - expiration - 60_000},
+                new Object[]{"reciente@epoca.example.com", System.currentTimeMillis() - 60_000}));
+
+        SecurityEpochRegistry restarted = newRegistry();
+        restarted.poll();
+
+        assertThat(restarted.currentEpoch("antigua@epoca.example.com")).isEqualTo(SecurityEpochRegistry.INITIAL_EPOCH);
+        assertThat(restarted.currentEpoch("reciente@epoca.example.com")).isGreaterThan(SecurityEpochRegistry.INITIAL_EPOCH);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SecurityEpochRegistry newRegistry() {
+        SecurityEpochRegistry registry = new SecurityEpochRegistry(securityEpochRepository, jdbcTemplate);
+        ReflectionTestUtils.setField(registry, "expiration", ReflectionTestUtils.getField(securityEpochRegistry, "expiration"));
+        ReflectionTestUtils.setField(registry, "pollOverlap", ReflectionTestUtils.getField(securityEpochRegistry, "pollOverlap"));
+        return registry;
+    }
+}
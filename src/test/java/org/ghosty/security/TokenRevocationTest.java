@@ -0,0 +1,123 @@
+package org.ghosty.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Revocacion de tokens: logout en este nodo, revocaciones de otros nodos recogidas por sondeo
+ * y entradas que desaparecen al caducar el token.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenRevocationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        adminToken = jwtService.generateToken(customUserDetailsService.loadUserByUsername("admin1@example.com"));
+    }
+
+    @Test
+    void logoutRejectsTokenButNotOtherTokensOfTheUser() throws Exception {
+        String otherToken = jwtService.generateToken(customUserDetailsService.loadUserByUsername("admin1@example.com"));
+        mockMvc.perform(get("/v1/api/users/1").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/v1/api/auth/logout").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/v1/api/users/1").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/v1/api/users/1").header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isOk());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from revoked_tokens where jti = ?", Long.class,
+                jwtService.extractTokenId(adminToken))).isEqualTo(1);
+    }
+
+    @Test
+    void revokeIgnoresInvalidTokens() throws Exception {
+        mockMvc.perform(post("/v1/api/auth/revoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"no-es-un-jwt\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void picksUpRevocationsFromOtherNodesOnPoll() throws Exception {
+        String jti = jwtService.extractTokenId(adminToken);
+        Instant now = Instant.now();
+        // Revocacion hecha por otro nodo: solo esta en la BD
+        jdbcTemplate.update("insert into revoked_tokens (jti, expires_at, revoked_at) values (?, ?, ?)",
+                jti, Timestamp.from(now.plus(1, ChronoUnit.HOURS)), Timestamp.from(now));
+        assertThat(tokenRevocationList.isRevoked(jti)).isFalse();
+
+        tokenRevocationList.poll();
+
+        assertThat(tokenRevocationList.isRevoked(jti)).isTrue();
+        mockMvc.perform(get("/v1/api/users/1").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void dropsEntriesOnceTheTokenExpires() {
+        long now = System.currentTimeMillis();
+        tokenRevocationList.add("caduca-pronto", now + 1_000);
+        tokenRevocationList.add("sigue-vigente", now + 3_600_000);
+        int size = tokenRevocationList.size();
+
+        tokenRevocationList.purgeExpired(now + 2_000);
+
+        assertThat(tokenRevocationList.size()).isEqualTo(size - 1);
+        assertThat(tokenRevocationList.isRevoked("caduca-pronto")).isFalse();
+        assertThat(tokenRevocationList.isRevoked("sigue-vigente")).isTrue();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revocado-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("revocado-" + i)).isTrue();
+            if (filter.mightContain("vigente-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+    }
+}
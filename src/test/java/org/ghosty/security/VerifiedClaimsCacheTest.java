@@ -0,0 +1,146 @@
+package org.ghosty.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de claims verificados: aciertos por SHA-256 del token, caducidad con el {@code exp} medida con el
+ * ticker del cache, tamaño acotado y estadisticas publicadas en Micrometer.
+ */
+class VerifiedClaimsCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void keysBySha256OfTheToken() throws Exception {
+        String token = "header.payload.signature";
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(VerifiedClaimsCache.digest(token))
+                .isEqualTo(Base64.getEncoder().withoutPadding().encodeToString(hash))
+                .hasSize(43);
+        assertThat(VerifiedClaimsCache.digest(token + "x")).isNotEqualTo(VerifiedClaimsCache.digest(token));
+    }
+
+    @Test
+    void verifiesOnceUntilTokenExpires() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10, nanos::get);
+        Function<String, Claims> verifier = verifierExpiringIn(60_000);
+
+        Claims first = cache.get("token-a", verifier);
+        assertThat(cache.get("token-a", verifier)).isSameAs(first);
+        assertThat(verifications).hasValue(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+
+        // Pasado el exp la entrada ya no se devuelve: se verifica otra vez (y el parser real lanzaria ExpiredJwtException)
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        cache.get("token-a", verifier);
+        assertThat(verifications).hasValue(2);
+        assertThat(cache.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void expiryFollowsTheCacheTicker() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10, nanos::get);
+        long exp = System.currentTimeMillis() + 60_000;
+        Function<String, Claims> verifier = token -> {
+            verifications.incrementAndGet();
+            return Jwts.claims().setSubject(token).setExpiration(new Date(exp));
+        };
+
+        // Para el ticker ya han pasado 30 s: al token le quedan 30 s, no 60
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        cache.get("token-a", verifier);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        cache.get("token-a", verifier);
+        assertThat(verifications).hasValue(1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        cache.get("token-a", verifier);
+        assertThat(verifications).hasValue(2);
+
+        // Segun el ticker el exp ya ha pasado: no se cachea
+        cache.get("token-a", verifier);
+        assertThat(verifications).hasValue(3);
+    }
+
+    @Test
+    void publishesCaffeineStatsToMicrometer() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10, nanos::get);
+        cache.bindTo(registry);
+        Function<String, Claims> verifier = verifierExpiringIn(60_000);
+
+        cache.get("token-a", verifier);
+        cache.get("token-a", verifier);
+        cache.get("token-a", verifier);
+
+        assertThat(registry.get("cache.gets").tags("cache", VerifiedClaimsCache.CACHE_NAME, "result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tags("cache", VerifiedClaimsCache.CACHE_NAME, "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tags("cache", VerifiedClaimsCache.CACHE_NAME).gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheTokensWithoutFutureExpiration() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(10, nanos::get);
+        Function<String, Claims> withoutExp = token -> {
+            verifications.incrementAndGet();
+            return Jwts.claims().setSubject(token);
+        };
+
+        cache.get("token-sin-exp", withoutExp);
+        cache.get("token-sin-exp", withoutExp);
+
+        assertThat(verifications).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void neverGrowsPastMaxSize() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(100, nanos::get);
+        Function<String, Claims> verifier = verifierExpiringIn(60_000);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.get("token-" + i, verifier);
+        }
+        cache.cleanUp();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.evictionCount()).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void disabledWithZeroMaxSize() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(0, nanos::get);
+        Function<String, Claims> verifier = verifierExpiringIn(60_000);
+
+        cache.get("token-a", verifier);
+        cache.get("token-a", verifier);
+
+        assertThat(verifications).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    private Function<String, Claims> verifierExpiringIn(long millis) {
+        return token -> {
+            verifications.incrementAndGet();
+            return Jwts.claims().setSubject(token).setExpiration(new Date(System.currentTimeMillis() + millis));
+        };
+    }
+}
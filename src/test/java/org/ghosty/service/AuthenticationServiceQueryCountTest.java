@@ -0,0 +1,116 @@
+package org.ghosty.service;
+
+import org.ghosty.config.CacheConfig;
+import org.ghosty.dto.request.GoogleLoginRequestDTO;
+import org.ghosty.dto.request.LoginRequestDTO;
+import org.ghosty.dto.request.RegisterRequestDTO;
+import org.ghosty.dto.response.AuthResponseDTO;
+import org.ghosty.model.User;
+import org.ghosty.repository.UserRepository;
+import org.ghosty.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Numero de sentencias SQL por flujo de autenticacion: cada usuario se carga como mucho una vez.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class AuthenticationServiceQueryCountTest {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private GoogleAuthService googleAuthService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.USER_DETAILS_CACHE).clear();
+        sqlStatementCounter.reset();
+    }
+
+    @Test
+    void loginLoadsUserWithSingleQuery() {
+        AuthResponseDTO response = authenticationService.authenticate(new LoginRequestDTO("user1@example.com", "password"));
+
+        assertThat(response.id()).isEqualTo(6L);
+        assertThat(response.username()).isEqualTo("user1");
+        assertThat(response.token()).isNotBlank();
+        // SELECT users JOIN roles
+        assertThat(sqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void registerDoesNotReloadSavedUser() {
+        AuthResponseDTO response = authenticationService.register(
+                new RegisterRequestDTO("nuevo", "nuevo.registro@example.com", "secreto123"));
+
+        assertThat(response.id()).isNotNull();
+        // exists por email + INSERT (el rol sale del RoleRegistry), sin volver a leer el usuario guardado.
+        // El total de sentencias no es fijo: el optimizador pooled pide users_seq una vez cada 50 altas
+        assertThat(sqlStatementCounter.queries()).isEqualTo(1);
+        assertThat(sqlStatementCounter.inserts()).isEqualTo(1);
+        assertThat(sqlStatementCounter.entityLoads()).isZero();
+        assertThat(sqlStatementCounter.count()).isBetween(2L, 3L);
+    }
+
+    @Test
+    void googleLoginLinksExistingUserWithoutReload() {
+        when(googleAuthService.verifyGoogleToken("token-existente")).thenReturn(Map.of(
+                "email", "user2@example.com",
+                "name", "user2",
+                "sub", "google-user2"));
+
+        AuthResponseDTO response = authenticationService.authenticateWithGoogle(new GoogleLoginRequestDTO("token-existente"));
+
+        assertThat(response.id()).isEqualTo(7L);
+        // SELECT users JOIN roles (google_id o email) + UPDATE google_id
+        assertThat(sqlStatementCounter.count()).isEqualTo(2);
+
+        sqlStatementCounter.reset();
+        authenticationService.authenticateWithGoogle(new GoogleLoginRequestDTO("token-existente"));
+        // Ya vinculado: solo la busqueda por google_id
+        assertThat(sqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void googleLoginCreatesNewUserWithoutReload() {
+        when(googleAuthService.verifyGoogleToken("token-nuevo")).thenReturn(Map.of(
+                "email", "nuevo.google@example.com",
+                "name", "Nuevo Google",
+                "sub", "google-nuevo"));
+
+        AuthResponseDTO response = authenticationService.authenticateWithGoogle(new GoogleLoginRequestDTO("token-nuevo"));
+
+        assertThat(response.email()).isEqualTo("nuevo.google@example.com");
+        // SELECT users + next value de users_seq (una vez cada 50 altas) + INSERT (el rol sale del RoleRegistry)
+        assertThat(sqlStatementCounter.queries()).isEqualTo(1);
+        assertThat(sqlStatementCounter.inserts()).isEqualTo(1);
+        assertThat(sqlStatementCounter.count()).isBetween(2L, 3L);
+        // Cuenta externa: marcador en vez de hash BCrypt
+        assertThat(userRepository.findByEmail("nuevo.google@example.com"))
+                .hasValueSatisfying(user -> assertThat(user.getPassword()).isEqualTo(User.EXTERNAL_AUTH_PASSWORD));
+    }
+}
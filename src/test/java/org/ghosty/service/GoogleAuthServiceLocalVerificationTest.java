@@ -0,0 +1,100 @@
+package org.ghosty.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ghosty.exception.BadRequestException;
+import org.ghosty.exception.ServiceUnavailableException;
+import org.ghosty.security.HttpJwksSource;
+import org.ghosty.security.JwksKeyCache;
+import org.ghosty.support.GoogleStubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verificacion local (RS256 contra el JWKS) de los ID tokens de Google, sin contexto de Spring:
+ * cada caso de rechazo da 400 y un JWKS que no se puede descargar da 503.
+ */
+class GoogleAuthServiceLocalVerificationTest {
+
+    private static final String CLIENT_ID = "test-client-id";
+
+    private GoogleStubServer google;
+    private JwksKeyCache keyCache;
+    private GoogleAuthService googleAuthService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        google = new GoogleStubServer();
+        RestTemplate restTemplate = new RestTemplate();
+        keyCache = new JwksKeyCache(new HttpJwksSource(restTemplate, google.jwksUri()), Duration.ZERO);
+        googleAuthService = new GoogleAuthService(restTemplate, keyCache, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(googleAuthService, "googleClientId", CLIENT_ID);
+        ReflectionTestUtils.setField(googleAuthService, "verificationMode", "local");
+        ReflectionTestUtils.setField(googleAuthService, "clockSkewSeconds", 60L);
+        googleAuthService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        keyCache.shutdown();
+        google.close();
+    }
+
+    @Test
+    void acceptsValidToken() {
+        Map<String, Object> userInfo = googleAuthService.verifyGoogleToken(token(claims -> { }));
+
+        assertThat(userInfo).containsEntry("email", "local@example.com").containsEntry("sub", "google-local");
+    }
+
+    @Test
+    void rejectsWrongIssuerAudienceAndUnverifiedEmail() {
+        assertRejected(token(claims -> claims.put("iss", "https://evil.example.com")));
+        assertRejected(token(claims -> claims.put("aud", "otra-aplicacion")));
+        assertRejected(token(claims -> claims.put("email_verified", false)));
+    }
+
+    @Test
+    void rejectsExpiredOrWithoutExpiration() {
+        // Fuera del margen de reloj de 60 s
+        assertRejected(token(claims -> claims.put("exp", System.currentTimeMillis() / 1000 - 120)));
+        assertRejected(token(claims -> claims.remove("exp")));
+    }
+
+    @Test
+    void rejectsUnknownKeyId() {
+        String token = google.sign("otra-clave", google.idTokenClaims(CLIENT_ID, "google-local", "local@example.com", "Local"));
+
+        assertRejected(token);
+    }
+
+    @Test
+    void unavailableJwksIsServiceUnavailable() {
+        google.setCertsStatus(503);
+
+        assertThatThrownBy(() -> googleAuthService.verifyGoogleToken(token(claims -> { })))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        google.setCertsStatus(200);
+        assertThat(googleAuthService.verifyGoogleToken(token(claims -> { }))).containsEntry("email", "local@example.com");
+    }
+
+    private String token(Consumer<Map<String, Object>> change) {
+        Map<String, Object> claims = google.idTokenClaims(CLIENT_ID, "google-local", "local@example.com", "Local");
+        change.accept(claims);
+        return google.sign(GoogleStubServer.KEY_ID, claims);
+    }
+
+    private void assertRejected(String token) {
+        assertThatThrownBy(() -> googleAuthService.verifyGoogleToken(token)).isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,102 @@
+package org.ghosty.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.ghosty.exception.ServiceUnavailableException;
+import org.ghosty.support.GoogleStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verificacion contra tokeninfo (servidor local) a traves del cliente HTTP con pool, timeouts y circuit breaker.
+ */
+@SpringBootTest(properties = {
+        "google.auth.verification=tokeninfo",
+        "google.http.read-timeout=300ms",
+        "google.http.circuit-breaker.failure-threshold=2",
+        "google.http.circuit-breaker.open-duration=1h"
+})
+@ActiveProfiles("test")
+class GoogleAuthServiceResilienceTest {
+
+    private static final GoogleStubServer GOOGLE = startStub();
+
+    @Autowired
+    private GoogleAuthService googleAuthService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void googleStub(DynamicPropertyRegistry registry) {
+        registry.add("google.auth.tokeninfo-uri", GOOGLE::tokenInfoUri);
+    }
+
+    @AfterEach
+    void resetDelay() {
+        GOOGLE.setTokenInfoDelayMillis(0);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        GOOGLE.close();
+    }
+
+    @Test
+    void verifiesThroughPooledClientAndRecordsRemoteLatency() {
+        String token = GOOGLE.issueIdToken("test-client-id", "google-sano", "sano@example.com", "Sano");
+
+        Map<String, Object> userInfo = googleAuthService.verifyGoogleToken(token);
+
+        assertThat(userInfo).containsEntry("email", "sano@example.com");
+        // La etiqueta uri es la plantilla, sin el token
+        assertThat(meterRegistry.get("http.client.requests")
+                .tag("uri", "/tokeninfo?id_token={idToken}")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get("google.http.pool.connections").tag("state", "available").gauge().value())
+                .isPositive();
+    }
+
+    @Test
+    @DirtiesContext
+    void opensCircuitAfterTimeoutsAndFailsFast() {
+        String token = GOOGLE.issueIdToken("test-client-id", "google-lento", "lento@example.com", "Lento");
+        GOOGLE.setTokenInfoDelayMillis(2_000);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> googleAuthService.verifyGoogleToken(token))
+                    .isInstanceOf(ServiceUnavailableException.class);
+        }
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> googleAuthService.verifyGoogleToken(token))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(100);
+
+        String host = URI.create(GOOGLE.tokenInfoUri()).getHost();
+        assertThat(meterRegistry.get("google.http.circuit.state").tag("host", host).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("google.http.circuit.rejected").tag("host", host).counter().count()).isEqualTo(1);
+    }
+
+    private static GoogleStubServer startStub() {
+        try {
+            return new GoogleStubServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.ghosty.service;
+
+import org.ghosty.dto.request.BulkDeleteRequestDTO;
+import org.ghosty.dto.request.BulkRoleChangeRequestDTO;
+import org.ghosty.dto.request.UserFilterDTO;
+import org.ghosty.dto.response.BulkOperationResponseDTO;
+import org.ghosty.exception.BadRequestException;
+import org.ghosty.security.SecurityEpochRegistry;
+import org.ghosty.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Operaciones masivas: dos sentencias por bloque de 1000 usuarios (claves + DELETE/UPDATE ... IN),
+ * con la epoca de seguridad de los usuarios afectados invalidada.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class UserBulkOperationsTest {
+
+    private static final int USERS = 2500;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private SecurityEpochRegistry securityEpochRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (id, username, email, password, rol_id) "
+                + "select next value for users_seq, concat('masivo', r.n), concat('masivo', r.n, '@masivo.example.com'), 'x', 2 "
+                + "from system_range(1, ?) as r(n)", USERS);
+        sqlStatementCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where email like 'masivo%@masivo.example.com'");
+    }
+
+    @Test
+    void changesRolByFilterWithTwoStatementsPerChunk() {
+        BulkOperationResponseDTO response = userService.bulkChangeRol(BulkRoleChangeRequestDTO.builder()
+                .filter(UserFilterDTO.builder().emailDomain("masivo.example.com").build())
+                .rol("ADMIN")
+                .build());
+
+        assertThat(response.matched()).isEqualTo(USERS);
+        assertThat(response.affected()).isEqualTo(USERS);
+        // 3 bloques (1000 + 1000 + 500) x (SELECT claves + UPDATE ... IN)
+        assertThat(sqlStatementCounter.count()).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from users where email like 'masivo%@masivo.example.com' and rol_id = 1", Long.class))
+                .isEqualTo(USERS);
+        assertThat(securityEpochRegistry.currentEpoch("masivo1@masivo.example.com"))
+                .isGreaterThan(SecurityEpochRegistry.INITIAL_EPOCH);
+
+        // Ya tienen el rol: se seleccionan pero no se actualizan
+        sqlStatementCounter.reset();
+        BulkOperationResponseDTO repeated = userService.bulkChangeRol(BulkRoleChangeRequestDTO.builder()
+                .filter(UserFilterDTO.builder().emailDomain("masivo.example.com").build())
+                .rol("ROLE_ADMIN")
+                .build());
+        assertThat(repeated.matched()).isEqualTo(USERS);
+        assertThat(repeated.affected()).isZero();
+        assertThat(sqlStatementCounter.count()).isEqualTo(3);
+    }
+
+    @Test
+    void deletesByIdsInChunks() {
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList(
+                "select id from users where email like 'masivo%@masivo.example.com' order by id", Long.class));
+        ids.add(ids.getFirst());
+        ids.add(-1L);
+
+        BulkOperationResponseDTO response = userService.bulkDelete(BulkDeleteRequestDTO.builder().ids(ids).build());
+
+        assertThat(response.matched()).isEqualTo(USERS);
+        assertThat(response.affected()).isEqualTo(USERS);
+        // 2501 ids distintos -> 3 bloques x (SELECT claves + DELETE ... IN)
+        assertThat(sqlStatementCounter.count()).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from users where email like 'masivo%@masivo.example.com'", Long.class)).isZero();
+        assertThat(securityEpochRegistry.currentEpoch("masivo2500@masivo.example.com"))
+                .isGreaterThan(SecurityEpochRegistry.INITIAL_EPOCH);
+    }
+
+    @Test
+    void requiresEitherIdsOrFilter() {
+        assertThatThrownBy(() -> userService.bulkDelete(BulkDeleteRequestDTO.builder().build()))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> userService.bulkDelete(BulkDeleteRequestDTO.builder()
+                .ids(List.of(1L))
+                .filter(UserFilterDTO.builder().rol("USER").build())
+                .build()))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> userService.bulkDelete(BulkDeleteRequestDTO.builder()
+                .filter(UserFilterDTO.builder().build())
+                .build()))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,156 @@
+package org.ghosty.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ghosty.dto.request.CreateUserRequestDTO;
+import org.ghosty.dto.response.BatchImportResponseDTO;
+import org.ghosty.dto.response.BatchImportRowResultDTO;
+import org.ghosty.dto.response.BatchImportRowResultDTO.Status;
+import org.ghosty.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Alta masiva: resultados fila a fila y INSERTs en batches JDBC (pocas sentencias preparadas
+ * para decenas de filas).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class UserImportServiceTest {
+
+    private static final int VALID_ROWS = 60;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        sqlStatementCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where email like 'importado%@example.com'");
+    }
+
+    @Test
+    void importsJsonInBatchesAndReportsEachRow() throws Exception {
+        List<CreateUserRequestDTO> users = new ArrayList<>();
+        for (int i = 1; i <= VALID_ROWS; i++) {
+            users.add(new CreateUserRequestDTO("importado" + i, "importado" + i + "@example.com", "secret" + i, "USER"));
+        }
+        users.add(new CreateUserRequestDTO("yaExiste", "user1@example.com", "secret", "USER"));
+        users.add(new CreateUserRequestDTO("repetido", "importado1@example.com", "secret", "USER"));
+        users.add(new CreateUserRequestDTO("sinEmail", "no-es-un-email", "secret", "USER"));
+        users.add(new CreateUserRequestDTO("rolRaro", "importado-rol@example.com", "secret", "SUPERUSER"));
+
+        BatchImportResponseDTO response = userImportService.importJson(
+                new ByteArrayInputStream(objectMapper.writeValueAsBytes(users)));
+
+        assertThat(response.total()).isEqualTo(VALID_ROWS + 4);
+        assertThat(response.created()).isEqualTo(VALID_ROWS);
+        assertThat(response.failed()).isEqualTo(4);
+        assertThat(response.results().subList(0, VALID_ROWS))
+                .allSatisfy(row -> {
+                    assertThat(row.status()).isEqualTo(Status.CREATED);
+                    assertThat(row.id()).isNotNull();
+                });
+        assertThat(response.results().subList(VALID_ROWS, VALID_ROWS + 4))
+                .extracting(BatchImportRowResultDTO::row, BatchImportRowResultDTO::status)
+                .containsExactly(
+                        tuple(VALID_ROWS + 1, Status.DUPLICATE),
+                        tuple(VALID_ROWS + 2, Status.DUPLICATE),
+                        tuple(VALID_ROWS + 3, Status.INVALID),
+                        tuple(VALID_ROWS + 4, Status.INVALID));
+
+        // 60 INSERTs en batches de 50 + consulta de duplicados + secuencia: muy lejos de una sentencia por fila
+        assertThat(sqlStatementCounter.count()).isLessThanOrEqualTo(8);
+
+        String hash = jdbcTemplate.queryForObject(
+                "select password from users where email = 'importado7@example.com'", String.class);
+        assertThat(passwordEncoder.matches("secret7", hash)).isTrue();
+    }
+
+    @Test
+    void importsCsvWithColumnsInAnyOrder() throws Exception {
+        String csv = """
+                email,rol,username,password
+                importado-csv1@example.com,ADMIN,importadoCsv1,"se,cret"
+                importado-csv2@example.com,user,"importado ""Csv"" 2",secret
+
+                importado-csv3@example.com,USER,,secret
+                """;
+
+        BatchImportResponseDTO response = userImportService.importCsv(new StringReader(csv));
+
+        assertThat(response.results())
+                .extracting(BatchImportRowResultDTO::email, BatchImportRowResultDTO::status)
+                .containsExactly(
+                        tuple("importado-csv1@example.com", Status.CREATED),
+                        tuple("importado-csv2@example.com", Status.CREATED),
+                        tuple("importado-csv3@example.com", Status.INVALID));
+        assertThat(jdbcTemplate.queryForObject(
+                "select username from users where email = 'importado-csv2@example.com'", String.class))
+                .isEqualTo("importado \"Csv\" 2");
+    }
+
+    @Test
+    void concurrentDuplicateMidBatchFallsBackRowByRow() throws Exception {
+        // Otra alta registra uno de los emails entre la comprobacion de existentes y el INSERT del bloque
+        // (mientras se calculan los hashes)
+        doAnswer(invocation -> {
+            jdbcTemplate.update("insert into users (id, username, email, password, rol_id) "
+                    + "values (960001, 'carrera', 'importado-carrera@example.com', 'x', 2)");
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).encode(eq("secret2"));
+        List<CreateUserRequestDTO> users = List.of(
+                new CreateUserRequestDTO("importado1", "importado1@example.com", "secret1", "USER"),
+                new CreateUserRequestDTO("carrera", "importado-carrera@example.com", "secret2", "USER"),
+                new CreateUserRequestDTO("importado3", "importado3@example.com", "secret3", "ADMIN"));
+
+        BatchImportResponseDTO response = userImportService.importJson(
+                new ByteArrayInputStream(objectMapper.writeValueAsBytes(users)));
+
+        assertThat(response.results())
+                .extracting(BatchImportRowResultDTO::email, BatchImportRowResultDTO::status)
+                .containsExactly(
+                        tuple("importado1@example.com", Status.CREATED),
+                        tuple("importado-carrera@example.com", Status.DUPLICATE),
+                        tuple("importado3@example.com", Status.CREATED));
+        for (BatchImportRowResultDTO row : List.of(response.results().get(0), response.results().get(2))) {
+            assertThat(row.id()).isNotNull();
+            assertThat(jdbcTemplate.queryForObject("select email from users where id = ?", String.class, row.id()))
+                    .isEqualTo(row.email());
+        }
+    }
+}
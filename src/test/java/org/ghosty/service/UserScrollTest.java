@@ -0,0 +1,109 @@
+package org.ghosty.service;
+
+import org.ghosty.dto.response.CursorPageResponseDTO;
+import org.ghosty.dto.response.UserResponseDTO;
+import org.ghosty.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Listado por cursor: ordenes admitidos, cursores invalidos y recorrido completo sin repetir ni
+ * saltar filas cuando muchas comparten el valor de la columna de orden.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserScrollTest {
+
+    private static final int USERS = 23;
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Solo tres usernames distintos: casi todos los saltos de pagina caen dentro de un empate
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update("insert into users (id, username, email, password, rol_id) values (?, ?, ?, 'x', 2)",
+                    980_000 + i, "scroll-" + "abc".charAt(i % 3), "scroll" + i + "@scroll.example.com");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where email like 'scroll%@scroll.example.com'");
+    }
+
+    @Test
+    void rejectsUnsupportedSort() {
+        assertThatThrownBy(() -> userService.scrollDTO(null, PAGE_SIZE, Sort.by("password")))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> userService.scrollDTO(null, PAGE_SIZE, Sort.by("username", "email")))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> userService.scrollDTO(null, 0, Sort.by("id")))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void rejectsInvalidOrTamperedCursor() {
+        String valid = userService.scrollDTO(null, PAGE_SIZE, Sort.by("username")).next();
+        String json = new String(Base64.getUrlDecoder().decode(valid), StandardCharsets.UTF_8);
+
+        for (String cursor : List.of(
+                "garbage!",
+                valid.substring(0, valid.length() / 2),
+                encode(json.replace("\"username\"", "\"password\"")),
+                encode(json.replaceFirst("\"key\":\"[^\"]*\"", "\"key\":null")),
+                encode(json.replaceFirst("\"id\":\\d+", "\"id\":\"uno\"")),
+                encode("[1,2,3]"))) {
+            assertThatThrownBy(() -> userService.scrollDTO(cursor, PAGE_SIZE, Sort.unsorted()))
+                    .as(cursor)
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Test
+    void traversesEveryRowOnceAcrossPageBoundaries() {
+        assertThat(walk(Sort.by("username"))).isEqualTo(ids("username asc, id asc"));
+        assertThat(walk(Sort.by(Sort.Direction.DESC, "username"))).isEqualTo(ids("username desc, id desc"));
+        assertThat(walk(Sort.by("email"))).isEqualTo(ids("email asc, id asc"));
+        assertThat(walk(Sort.by(Sort.Direction.DESC, "id"))).isEqualTo(ids("id desc"));
+    }
+
+    private List<Long> walk(Sort sort) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponseDTO<UserResponseDTO> page = userService.scrollDTO(cursor, PAGE_SIZE, sort);
+            assertThat(page.content()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.content().forEach(user -> ids.add(user.id()));
+            cursor = page.next();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<Long> ids(String orderBy) {
+        return jdbcTemplate.queryForList("select id from users order by " + orderBy, Long.class);
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
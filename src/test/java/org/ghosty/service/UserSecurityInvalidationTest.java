@@ -0,0 +1,87 @@
+package org.ghosty.service;
+
+import org.ghosty.dto.request.BulkRoleChangeRequestDTO;
+import org.ghosty.security.CustomUserDetailsService;
+import org.ghosty.security.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Un administrador degradado pierde los permisos en la siguiente peticion, aunque otra peticion lo
+ * haya vuelto a cachear con el rol antiguo mientras la transaccion del cambio seguia abierta.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserSecurityInvalidationTest {
+
+    private static final long ID = 970_001;
+    private static final String EMAIL = "degradado@invalidation.example.com";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (id, username, email, password, rol_id) values (?, 'degradado', ?, 'x', 1)", ID, EMAIL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where id = ?", ID);
+        customUserDetailsService.evict(EMAIL);
+    }
+
+    @Test
+    void demotedUserLosesAdminOnNextRequest() throws Exception {
+        String token = "Bearer " + jwtService.generateToken(customUserDetailsService.loadUserByUsername(EMAIL));
+        mockMvc.perform(get("/v1/api/users").header(HttpHeaders.AUTHORIZATION, token)).andExpect(status().isOk());
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            userService.bulkChangeRol(BulkRoleChangeRequestDTO.builder().ids(List.of(ID)).rol("USER").build());
+            // Otra peticion se autentica antes del commit: lee la fila sin el cambio y la cachea
+            UserDetails concurrent = CompletableFuture.supplyAsync(() -> customUserDetailsService.loadUserByUsername(EMAIL)).join();
+            assertThat(authorities(concurrent)).containsExactly("ROLE_ADMIN");
+        });
+
+        assertThat(authorities(customUserDetailsService.loadUserByUsername(EMAIL))).containsExactly("ROLE_USER");
+        mockMvc.perform(get("/v1/api/users").header(HttpHeaders.AUTHORIZATION, token)).andExpect(status().isForbidden());
+    }
+
+    private static List<String> authorities(UserDetails user) {
+        return user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package org.ghosty.service;
+
+import org.ghosty.dto.response.CursorPageResponseDTO;
+import org.ghosty.dto.response.UserResponseDTO;
+import org.ghosty.enums.Erol;
+import org.ghosty.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Numero de sentencias SQL de los listados de usuarios: una pagina de 1000 filas es una sola
+ * consulta (mas el COUNT en el listado paginado), sin consultas por rol ni entidades cargadas.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class UserServiceQueryCountTest {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (id, username, email, password, rol_id) "
+                + "select next value for users_seq, concat('listado', r.n), concat('listado', r.n, '@example.com'), 'x', 2 "
+                + "from system_range(1, ?) as r(n)", PAGE_SIZE);
+        sqlStatementCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where email like 'listado%@example.com'");
+    }
+
+    @Test
+    void pageOfThousandUsersIsOneSelectPlusCount() {
+        Page<UserResponseDTO> page = userService.findAllDTO(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(user -> assertThat(user.rol()).isNotNull());
+        assertThat(page.getContent().get(0).rol()).isEqualTo(Erol.ROLE_ADMIN);
+        // SELECT users LEFT JOIN roles + COUNT
+        assertThat(sqlStatementCounter.count()).isEqualTo(2);
+        assertThat(sqlStatementCounter.entityLoads()).isZero();
+    }
+
+    @Test
+    void cursorPageOfThousandUsersIsOneSelect() {
+        CursorPageResponseDTO<UserResponseDTO> page = userService.scrollDTO(null, PAGE_SIZE, Sort.by("id"));
+
+        assertThat(page.content()).hasSize(PAGE_SIZE);
+        assertThat(page.next()).isNotNull();
+        assertThat(page.content()).allSatisfy(user -> assertThat(user.rol()).isNotNull());
+        // Un solo SELECT: el rol se resuelve por id con RoleRegistry
+        assertThat(sqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdIsOneSelect() {
+        UserResponseDTO user = userService.findById(6L);
+
+        assertThat(user.email()).isEqualTo("user1@example.com");
+        assertThat(user.rol()).isEqualTo(Erol.ROLE_USER);
+        assertThat(sqlStatementCounter.count()).isEqualTo(1);
+        assertThat(sqlStatementCounter.entityLoads()).isZero();
+    }
+}
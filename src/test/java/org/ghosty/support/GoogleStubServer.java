@@ -0,0 +1,182 @@
+package org.ghosty.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP local que imita los endpoints de Google usados en el login:
+ * {@code /oauth2/v3/certs} (JWKS) y {@code /tokeninfo}. Firma sus propios ID tokens RS256.
+ */
+public class GoogleStubServer implements AutoCloseable {
+
+    public static final String KEY_ID = "stub-key-1";
+    public static final String ISSUER = "https://accounts.google.com";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final KeyPair keyPair;
+    private volatile long tokenInfoDelayMillis;
+    private volatile int certsStatus = 200;
+
+    public GoogleStubServer() throws IOException {
+        this.keyPair = generateKeyPair();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/oauth2/v3/certs", this::handleCerts);
+        this.server.createContext("/tokeninfo", this::handleTokenInfo);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String jwksUri() {
+        return baseUrl() + "/oauth2/v3/certs";
+    }
+
+    public String tokenInfoUri() {
+        return baseUrl() + "/tokeninfo";
+    }
+
+    /** Latencia artificial del endpoint tokeninfo, para acercarse a la de Google real. */
+    public void setTokenInfoDelayMillis(long tokenInfoDelayMillis) {
+        this.tokenInfoDelayMillis = tokenInfoDelayMillis;
+    }
+
+    /** Estado HTTP del JWKS: distinto de 200 para simular una caida de Google. */
+    public void setCertsStatus(int certsStatus) {
+        this.certsStatus = certsStatus;
+    }
+
+    public String issueIdToken(String audience, String sub, String email, String name) {
+        return sign(KEY_ID, idTokenClaims(audience, sub, email, name));
+    }
+
+    /**
+     * Claims de un ID token valido (una hora de vigencia), para modificarlos antes de {@link #sign}.
+     */
+    public Map<String, Object> idTokenClaims(String audience, String sub, String email, String name) {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        Map<String, Object> claims = new java.util.HashMap<>();
+        claims.put("iss", ISSUER);
+        claims.put("aud", audience);
+        claims.put("sub", sub);
+        claims.put("email", email);
+        claims.put("email_verified", true);
+        claims.put("name", name);
+        claims.put("iat", nowSeconds);
+        claims.put("exp", nowSeconds + 3_600);
+        return claims;
+    }
+
+    /** Firma RS256 con la clave del stub y el {@code kid} indicado (uno distinto de KEY_ID no esta en el JWKS). */
+    public String sign(String kid, Map<String, Object> claims) {
+        return Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setClaims(claims)
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleCerts(HttpExchange exchange) throws IOException {
+        if (certsStatus != 200) {
+            writeJson(exchange, certsStatus, Map.of("error", "unavailable"));
+            return;
+        }
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Map<String, Object> jwk = Map.of(
+                "kty", "RSA",
+                "alg", "RS256",
+                "use", "sig",
+                "kid", KEY_ID,
+                "n", encoder.encodeToString(toUnsigned(publicKey.getModulus().toByteArray())),
+                "e", encoder.encodeToString(toUnsigned(publicKey.getPublicExponent().toByteArray()))
+        );
+        exchange.getResponseHeaders().add("Cache-Control", "public, max-age=3600");
+        writeJson(exchange, 200, Map.of("keys", List.of(jwk)));
+    }
+
+    private void handleTokenInfo(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String idToken = query != null && query.startsWith("id_token=")
+                ? URLDecoder.decode(query.substring("id_token=".length()), StandardCharsets.UTF_8)
+                : "";
+        sleep(tokenInfoDelayMillis);
+        try {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(keyPair.getPublic())
+                    .build()
+                    .parseClaimsJws(idToken)
+                    .getBody();
+            // tokeninfo devuelve todos los valores como texto
+            Map<String, Object> body = new java.util.HashMap<>();
+            claims.forEach((key, value) -> body.put(key, String.valueOf(value)));
+            writeJson(exchange, 200, body);
+        } catch (RuntimeException e) {
+            writeJson(exchange, 400, Map.of("error", "invalid_token"));
+        }
+    }
+
+    private static void writeJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] toUnsigned(byte[] bytes) {
+        if (bytes.length > 1 && bytes[0] == 0) {
+            return java.util.Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return bytes;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.ghosty.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuenta las sentencias SQL preparadas por Hibernate (requiere {@code hibernate.generate_statistics=true}).
+ */
+@Component
+public class SqlStatementCounter {
+
+    private final Statistics statistics;
+
+    public SqlStatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Consultas (JPQL, criteria o derivadas de Spring Data) ejecutadas, sin contar INSERT/UPDATE ni llamadas a secuencias.
+     */
+    public long queries() {
+        return statistics.getQueryExecutionCount();
+    }
+
+    /**
+     * Entidades insertadas.
+     */
+    public long inserts() {
+        return statistics.getEntityInsertCount();
+    }
+
+    /**
+     * Entidades materializadas (y por tanto gestionadas por el contexto de persistencia).
+     */
+    public long entityLoads() {
+        return statistics.getEntityLoadCount();
+    }
+}